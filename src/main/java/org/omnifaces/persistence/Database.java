@@ -12,13 +12,19 @@
  */
 package org.omnifaces.persistence;
 
+import static java.lang.String.join;
 import static java.util.Arrays.stream;
 import static java.util.logging.Level.WARNING;
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
 import static java.util.stream.Stream.concat;
 import static org.omnifaces.utils.Lang.startsWithOneOf;
 
+import java.util.List;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
@@ -31,15 +37,94 @@ import org.omnifaces.persistence.service.BaseEntityService;
  */
 public enum Database {
 
-	H2,
+	H2 {
+
+		@Override
+		public String buildUpsertStatement(String tableName, String idColumnName, List<String> columnNames, List<String> updateColumnNames, List<List<String>> rows) {
+			// H2's MERGE with KEY always updates all given columns of an existing row, it doesn't support a separate update column list.
+			// So the value of any column which may not be updated is replaced by the existing value, if any. MERGE with USING can't be
+			// used instead, because H2 can't determine the type of a positional parameter in a derived table.
+			int idIndex = columnNames.indexOf(idColumnName);
+			List<List<String>> mergeRows = rows.stream().map(row -> range(0, row.size()).mapToObj(i -> (i == idIndex || updateColumnNames.contains(columnNames.get(i)))
+				? row.get(i)
+				: ("COALESCE((SELECT " + columnNames.get(i) + " FROM " + tableName + " WHERE " + idColumnName + " = " + row.get(idIndex) + "), " + row.get(i) + ")"))
+				.collect(toList())).collect(toList());
+			return "MERGE INTO " + tableName + " (" + join(", ", columnNames) + ") KEY (" + idColumnName + ") VALUES " + joinRows(mergeRows);
+		}
+
+		@Override
+		public String buildEstimatedRowCountQuery() {
+			return "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = SCHEMA() AND UPPER(TABLE_NAME) = UPPER(?1)";
+		}
+
+		@Override
+		public String buildVersionQuery() {
+			return "SELECT H2VERSION()";
+		}
+
+		@Override
+		boolean supportsWindowFunctions(String version) {
+			return isAtLeast(version, 1, 4, 198);
+		}
+	},
+
+	MYSQL("MARIA") {
+
+		@Override
+		public String buildUpsertStatement(String tableName, String idColumnName, List<String> columnNames, List<String> updateColumnNames, List<List<String>> rows) {
+			return "INSERT INTO " + tableName + " (" + join(", ", columnNames) + ") VALUES " + joinRows(rows)
+				+ " ON DUPLICATE KEY UPDATE " + (updateColumnNames.isEmpty()
+					? (idColumnName + " = " + idColumnName)
+					: updateColumnNames.stream().map(columnName -> columnName + " = VALUES(" + columnName + ")").collect(joining(", ")));
+		}
+
+		@Override
+		public String buildEstimatedRowCountQuery() {
+			return "SELECT TABLE_ROWS FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = DATABASE() AND UPPER(TABLE_NAME) = UPPER(?1)";
+		}
 
-	MYSQL("MARIA"),
+		@Override
+		public String buildVersionQuery() {
+			return "SELECT VERSION()";
+		}
+
+		@Override
+		boolean supportsWindowFunctions(String version) {
+			return version.toUpperCase().contains("MARIA") ? isAtLeast(version, 10, 2) : isAtLeast(version, 8);
+		}
+	},
+
+	POSTGRESQL("POSTGRES") {
+
+		@Override
+		public String buildUpsertStatement(String tableName, String idColumnName, List<String> columnNames, List<String> updateColumnNames, List<List<String>> rows) {
+			return "INSERT INTO " + tableName + " (" + join(", ", columnNames) + ") VALUES " + joinRows(rows)
+				+ " ON CONFLICT (" + idColumnName + ") " + (updateColumnNames.isEmpty()
+					? "DO NOTHING"
+					: "DO UPDATE SET " + updateColumnNames.stream().map(columnName -> columnName + " = EXCLUDED." + columnName).collect(joining(", ")));
+		}
 
-	POSTGRESQL("POSTGRES"),
+		@Override
+		public String buildEstimatedRowCountQuery() {
+			// Unquoted identifiers are stored in lowercase. The reltuples is -1 (or 0 before PostgreSQL 14) when the table was never analyzed.
+			return "SELECT CAST(c.reltuples AS BIGINT) FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace WHERE n.nspname = current_schema() AND c.relname = LOWER(?1)";
+		}
+
+		@Override
+		public String buildVersionQuery() {
+			return "SELECT current_setting('server_version')";
+		}
+
+		@Override
+		boolean supportsWindowFunctions(String version) {
+			return isAtLeast(version, 8, 4);
+		}
+	},
 
 	UNKNOWN;
 
 	private static final Logger logger = Logger.getLogger(Database.class.getName());
+	private static final Pattern VERSION_PATTERN = Pattern.compile("[0-9]+(\\.[0-9]+)*");
 
 	private String[] names;
 
@@ -71,4 +156,82 @@ public enum Database {
 		return BaseEntityService.getCurrentInstance().getDatabase() == database;
 	}
 
+	/**
+	 * Returns the native SQL statement which inserts the given rows, or updates the given update columns of the rows
+	 * whose ID column value already exists.
+	 * @param tableName The table name.
+	 * @param idColumnName The ID column name.
+	 * @param columnNames The names of all columns to insert, including the ID column.
+	 * @param updateColumnNames The names of the columns to update when the ID already exists.
+	 * @param rows The SQL values of each row, each in the same order as the column names.
+	 * @return The native SQL upsert statement.
+	 * @throws UnsupportedOperationException When the database is {@link #UNKNOWN}.
+	 */
+	public String buildUpsertStatement(String tableName, String idColumnName, List<String> columnNames, List<String> updateColumnNames, List<List<String>> rows) {
+		throw new UnsupportedOperationException(tableName);
+	}
+
+	/**
+	 * Returns the native SQL query which selects the estimated amount of rows of the table whose name is given as first
+	 * positional parameter. The estimate is obtained from the table statistics maintained by the database, so this
+	 * doesn't scan the table, but it may be outdated.
+	 * @return The native SQL query which selects the estimated amount of rows of a table.
+	 * @throws UnsupportedOperationException When the database is {@link #UNKNOWN}.
+	 */
+	public String buildEstimatedRowCountQuery() {
+		throw new UnsupportedOperationException(name());
+	}
+
+	/**
+	 * Returns the native SQL query which selects the version of the database.
+	 * @return The native SQL query which selects the version of the database.
+	 * @throws UnsupportedOperationException When the database is {@link #UNKNOWN}.
+	 */
+	public String buildVersionQuery() {
+		throw new UnsupportedOperationException(name());
+	}
+
+	/**
+	 * Returns whether the database behind given entity manager supports window functions such as
+	 * <code>COUNT(*) OVER()</code>. This is the case since H2 1.4.198, MySQL 8, MariaDB 10.2 and PostgreSQL 8.4.
+	 * @param entityManager The entity manager.
+	 * @return Whether the database behind given entity manager supports window functions.
+	 */
+	public boolean supportsWindowFunctions(EntityManager entityManager) {
+		if (this == UNKNOWN) {
+			return false;
+		}
+
+		String version = String.valueOf(entityManager.createNativeQuery(buildVersionQuery()).getSingleResult());
+		return supportsWindowFunctions(version);
+	}
+
+	boolean supportsWindowFunctions(String version) {
+		return false;
+	}
+
+	private static boolean isAtLeast(String version, int... minimum) {
+		Matcher matcher = VERSION_PATTERN.matcher(version);
+
+		if (!matcher.find()) {
+			return false;
+		}
+
+		String[] parts = matcher.group().split("\\.");
+
+		for (int i = 0; i < minimum.length; i++) {
+			int part = (i < parts.length) ? Integer.parseInt(parts[i]) : 0;
+
+			if (part != minimum[i]) {
+				return part > minimum[i];
+			}
+		}
+
+		return true;
+	}
+
+	private static String joinRows(List<List<String>> rows) {
+		return rows.stream().map(row -> join(", ", row)).collect(joining("), (", "(", ")"));
+	}
+
 }
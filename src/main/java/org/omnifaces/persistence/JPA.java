@@ -13,6 +13,7 @@
 package org.omnifaces.persistence;
 
 import static java.util.Optional.ofNullable;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static java.util.stream.Collectors.toList;
 import static org.omnifaces.persistence.Database.POSTGRESQL;
 import static org.omnifaces.persistence.Provider.HIBERNATE;
@@ -29,12 +30,16 @@ import java.time.OffsetTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.enterprise.inject.Typed;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.NoResultException;
@@ -256,6 +261,48 @@ public final class JPA {
 			.sum();
 	}
 
+	/**
+	 * Returns count of all foreign key references to entity of given entity type with given ID of given identifier type.
+	 * This does the same as {@link #countForeignKeyReferences(EntityManager, Class, Class, Object)}, but it counts the
+	 * references of each referencing attribute in parallel with given executor, each on its own new entity manager
+	 * created by the entity manager factory of given entity manager. Note that those counts run outside the current
+	 * transaction and therefore won't see its uncommitted changes.
+	 * @param <T> The generic result type.
+	 * @param <I> The generic identifier type.
+	 * @param entityManager The involved entity manager.
+	 * @param entityType Entity type.
+	 * @param identifierType Identifier type.
+	 * @param id Entity ID.
+	 * @param executor The executor with which the counts should be executed in parallel.
+	 * @return Count of all foreign key references to entity of given entity type with given ID of given identifier type.
+	 */
+	public static <T, I> long countForeignKeyReferences(EntityManager entityManager, Class<T> entityType, Class<I> identifierType, I id, Executor executor) {
+		EntityManagerFactory entityManagerFactory = entityManager.getEntityManagerFactory();
+		Metamodel metamodel = entityManager.getMetamodel();
+		SingularAttribute<? super T, I> idAttribute = metamodel.entity(entityType).getId(identifierType);
+		List<CompletableFuture<Long>> counts = metamodel.getEntities().stream()
+			.flatMap(entity -> getAttributesOfType(entity, entityType))
+			.distinct()
+			.map(attribute -> supplyAsync(() -> {
+				EntityManager forkedEntityManager = entityManagerFactory.createEntityManager();
+
+				try {
+					return countReferencesTo(forkedEntityManager, attribute, idAttribute, id);
+				}
+				finally {
+					forkedEntityManager.close();
+				}
+			}, executor))
+			.collect(toList());
+
+		try {
+			return counts.stream().mapToLong(CompletableFuture::join).sum();
+		}
+		catch (CompletionException e) {
+			throw (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : e;
+		}
+	}
+
 	private static <E, T> Stream<Attribute<?, ?>> getAttributesOfType(EntityType<E> entity, Class<T> entityType) {
 		return entity.getAttributes().stream()
 			.filter(attribute -> entityType.equals(getJavaType(attribute)))
@@ -25,6 +25,10 @@ import static org.omnifaces.utils.reflect.Reflections.invokeMethod;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
@@ -34,8 +38,15 @@ import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
+import javax.persistence.Inheritance;
+import javax.persistence.Query;
+import javax.persistence.SecondaryTable;
+import javax.persistence.SecondaryTables;
 import javax.persistence.Table;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Root;
 import javax.persistence.metamodel.Attribute;
 
 import org.omnifaces.persistence.model.BaseEntity;
@@ -92,6 +103,61 @@ public enum Provider {
 			return invokeOnProxy(entity, "getIdentifier", super::getIdentifier);
 		}
 
+		@Override
+		public <I extends Comparable<I> & Serializable, E extends BaseEntity<I>> List<E> multiLoad(EntityManager entityManager, Class<E> entityType, List<I> ids, int batchSize) {
+			// Session#byMultipleIds() is available since 5.1. With session check it returns already managed entities without hitting the DB.
+			// The methods are resolved by parameter type, because they are overloaded, e.g. multiLoad(Object...) and multiLoad(List).
+			Object multiIdentifierLoadAccess = invokeMethod(entityManager.unwrap(HIBERNATE_SESSION.get()), getMethod(HIBERNATE_SESSION, "byMultipleIds", Class.class), entityType);
+			multiIdentifierLoadAccess = invokeMethod(multiIdentifierLoadAccess, getMethod(HIBERNATE_MULTI_IDENTIFIER_LOAD_ACCESS, "enableSessionCheck", boolean.class), true);
+			multiIdentifierLoadAccess = invokeMethod(multiIdentifierLoadAccess, getMethod(HIBERNATE_MULTI_IDENTIFIER_LOAD_ACCESS, "withBatchSize", int.class), batchSize);
+			return invokeMethod(multiIdentifierLoadAccess, getMethod(HIBERNATE_MULTI_IDENTIFIER_LOAD_ACCESS, "multiLoad", List.class), ids);
+		}
+
+		@Override
+		public String getQueryString(Query query) {
+			if (!HIBERNATE_QUERY.isPresent()) {
+				return null; // org.hibernate.query.Query is available since 5.2.
+			}
+
+			return invokeMethod(query.unwrap(HIBERNATE_QUERY.get()), getMethod(HIBERNATE_QUERY, "getQueryString"));
+		}
+
+		@Override
+		public Collection<Object> getManagedEntities(EntityManager entityManager) {
+			// PersistenceContext#getEntitiesByKey() is a live view of the entities of the session, so it's copied.
+			Object session = entityManager.unwrap(HIBERNATE_SESSION_IMPLEMENTOR.get());
+			Object persistenceContext = invokeMethod(session, getMethod(HIBERNATE_SESSION_IMPLEMENTOR, "getPersistenceContext"));
+			Map<?, Object> entitiesByKey = invokeMethod(persistenceContext, getMethod(HIBERNATE_PERSISTENCE_CONTEXT, "getEntitiesByKey"));
+			return new ArrayList<>(entitiesByKey.values());
+		}
+
+		@Override
+		public Expression<Long> buildWindowedCount(EntityManagerFactory entityManagerFactory, CriteriaBuilder criteriaBuilder, Root<?> root) {
+			// Hibernate's HQL parser doesn't support window functions, so it must be registered as SQL function, see Javadoc.
+			Object sessionFactory = entityManagerFactory.unwrap(HIBERNATE_SESSION_FACTORY_IMPLEMENTOR.get());
+			Object sqlFunctionRegistry = invokeMethod(sessionFactory, getMethod(HIBERNATE_SESSION_FACTORY_IMPLEMENTOR, "getSqlFunctionRegistry"));
+			boolean registered = invokeMethod(sqlFunctionRegistry, getMethod(HIBERNATE_SQL_FUNCTION_REGISTRY, "hasFunction", String.class), HIBERNATE_WINDOWED_COUNT_FUNCTION);
+			return registered ? criteriaBuilder.function(HIBERNATE_WINDOWED_COUNT_FUNCTION, Long.class) : null;
+		}
+
+		@Override
+		public String getColumnName(EntityManagerFactory entityManagerFactory, Class<?> entityType, String attributeName) {
+			if (!HIBERNATE_METAMODEL_IMPLEMENTOR.isPresent()) {
+				return null; // MetamodelImplementor#entityPersister() is available since 5.2.
+			}
+
+			Object sessionFactory = entityManagerFactory.unwrap(HIBERNATE_SESSION_FACTORY_IMPLEMENTOR.get());
+			Object metamodel = invokeMethod(sessionFactory, getMethod(HIBERNATE_SESSION_FACTORY_IMPLEMENTOR, "getMetamodel"));
+			Object entityPersister = invokeMethod(metamodel, getMethod(HIBERNATE_METAMODEL_IMPLEMENTOR, "entityPersister", Class.class), entityType);
+
+			if (!HIBERNATE_ABSTRACT_ENTITY_PERSISTER.get().isInstance(entityPersister)) {
+				return null;
+			}
+
+			String[] columnNames = invokeMethod(entityPersister, getMethod(HIBERNATE_ABSTRACT_ENTITY_PERSISTER, "getPropertyColumnNames", String.class), attributeName);
+			return (columnNames != null && columnNames.length == 1) ? columnNames[0] : null;
+		}
+
 		@SuppressWarnings("unchecked")
 		private <T, I extends Comparable<I> & Serializable, E extends BaseEntity<I>> T invokeOnProxy(E entity, String methodName, Function<E, T> fallback) {
 			return isProxy(entity) ? (T) invokeMethod(invokeMethod(entity, "getHibernateLazyInitializer"), methodName) : fallback.apply(entity);
@@ -110,10 +176,52 @@ public enum Provider {
 		public boolean isAggregation(Expression<?> expression) {
 			return ECLIPSELINK_FUNCTION_EXPRESSION_IMPL.get().isInstance(expression) && AGGREGATE_FUNCTIONS.contains(invokeMethod(expression, "getOperation"));
 		}
+
+		@Override
+		public Expression<Long> buildWindowedCount(EntityManagerFactory entityManagerFactory, CriteriaBuilder criteriaBuilder, Root<?> root) {
+			// Expression#sql() creates a custom operator printing the given SQL as is, which is EclipseLink's documented way to embed native SQL.
+			Object expressionBuilder = invokeMethod(root, "getCurrentNode");
+			Object windowedCount = invokeMethod(expressionBuilder, getMethod(ECLIPSELINK_EXPRESSION, "sql", String.class, List.class), WINDOWED_COUNT_SQL, new ArrayList<>());
+			return invokeMethod(criteriaBuilder, getMethod(ECLIPSELINK_JPA_CRITERIA_BUILDER, "fromExpression", ECLIPSELINK_EXPRESSION.get(), Class.class), windowedCount, Long.class);
+		}
+
+		@Override
+		public String getQueryString(Query query) {
+			// The SQL of a criteria query is only generated once it is prepared, which happens during its first execution.
+			Object databaseQuery = invokeMethod(query.unwrap(ECLIPSELINK_JPA_QUERY.get()), getMethod(ECLIPSELINK_JPA_QUERY, "getDatabaseQuery"));
+			return invokeMethod(databaseQuery, getMethod(ECLIPSELINK_DATABASE_QUERY, "getSQLString"));
+		}
+
+		@Override
+		public Collection<Object> getManagedEntities(EntityManager entityManager) {
+			// UnitOfWorkImpl#getCloneMapping() has the managed entities of the persistence context as keys.
+			Map<Object, Object> cloneMapping = invokeMethod(entityManager.unwrap(ECLIPSELINK_UNIT_OF_WORK.get()), "getCloneMapping");
+			return new ArrayList<>(cloneMapping.keySet());
+		}
+
+		@Override
+		public String getColumnName(EntityManagerFactory entityManagerFactory, Class<?> entityType, String attributeName) {
+			Object session = invokeMethod(unwrapEntityManagerFactoryIfNecessary(entityManagerFactory), "getDatabaseSession");
+			Object descriptor = invokeMethod(session, getMethod(ECLIPSELINK_SESSION, "getClassDescriptor", Class.class), entityType);
+			Object mapping = (descriptor != null) ? invokeMethod(descriptor, getMethod(ECLIPSELINK_CLASS_DESCRIPTOR, "getMappingForAttributeName", String.class), attributeName) : null;
+			Object field = (mapping != null) ? invokeMethod(mapping, getMethod(ECLIPSELINK_DATABASE_MAPPING, "getField")) : null; // Only direct mappings have a single field.
+			return (field != null) ? invokeMethod(field, getMethod(ECLIPSELINK_DATABASE_FIELD, "getName")) : null;
+		}
 	},
 
 	OPENJPA {
 
+		@Override
+		public String getQueryString(Query query) {
+			return invokeMethod(query.unwrap(OPENJPA_QUERY.get()), getMethod(OPENJPA_QUERY, "getQueryString"));
+		}
+
+		@Override
+		public Collection<Object> getManagedEntities(EntityManager entityManager) {
+			Collection<Object> managedObjects = invokeMethod(entityManager.unwrap(OPENJPA_ENTITY_MANAGER.get()), getMethod(OPENJPA_ENTITY_MANAGER, "getManagedObjects"));
+			return new ArrayList<>(managedObjects);
+		}
+
 		@Override
 		public String getDialectName(EntityManagerFactory entityManagerFactory) {
 			Object unwrappedEntityManagerFactory = unwrapEntityManagerFactoryIfNecessary(entityManagerFactory);
@@ -145,9 +253,17 @@ public enum Provider {
 	public static final String QUERY_HINT_HIBERNATE_CACHE_REGION = "org.hibernate.cacheRegion"; // 2nd level cache region ID
 	public static final String QUERY_HINT_ECLIPSELINK_MAINTAIN_CACHE = "eclipselink.maintain-cache"; // true | false
 	public static final String QUERY_HINT_ECLIPSELINK_REFRESH = "eclipselink.refresh"; // true | false
+	public static final String QUERY_HINT_HIBERNATE_FETCH_SIZE = "org.hibernate.fetchSize"; // JDBC fetch size
+	public static final String QUERY_HINT_ECLIPSELINK_FETCH_SIZE = "eclipselink.jdbc.fetch-size"; // JDBC fetch size
+	public static final String QUERY_HINT_OPENJPA_FETCH_SIZE = "openjpa.FetchPlan.FetchBatchSize"; // JDBC fetch size
+	public static final String HIBERNATE_WINDOWED_COUNT_FUNCTION = "count_over"; // Must be registered as SQL function rendering COUNT(*) OVER()
+
+	private static final String WINDOWED_COUNT_SQL = "COUNT(*) OVER()";
 
 	private static final Optional<Class<Object>> HIBERNATE_PROXY = findClass("org.hibernate.proxy.HibernateProxy");
+	private static final Optional<Class<Object>> HIBERNATE_SESSION = findClass("org.hibernate.Session");
 	private static final Optional<Class<Object>> HIBERNATE_SESSION_FACTORY = findClass("org.hibernate.SessionFactory");
+	private static final Optional<Class<Object>> HIBERNATE_MULTI_IDENTIFIER_LOAD_ACCESS = findClass("org.hibernate.MultiIdentifierLoadAccess");
 	private static final Optional<Class<Object>> HIBERNATE_3_5_0_BASIC_FUNCTION_EXPRESSION = findClass("org.hibernate.ejb.criteria.expression.function.BasicFunctionExpression");
 	private static final Optional<Class<Object>> HIBERNATE_4_3_0_BASIC_FUNCTION_EXPRESSION = findClass("org.hibernate.jpa.criteria.expression.function.BasicFunctionExpression");
 	private static final Optional<Class<Object>> HIBERNATE_5_2_0_BASIC_FUNCTION_EXPRESSION = findClass("org.hibernate.query.criteria.internal.expression.function.BasicFunctionExpression");
@@ -156,7 +272,25 @@ public enum Provider {
 	private static final Optional<Class<Object>> HIBERNATE_4_3_0_COMPARISON_PREDICATE = findClass("org.hibernate.jpa.criteria.predicate.ComparisonPredicate");
 	private static final Optional<Class<Object>> HIBERNATE_5_2_0_COMPARISON_PREDICATE = findClass("org.hibernate.query.criteria.internal.predicate.ComparisonPredicate");
 	private static final Optional<Class<Object>> HIBERNATE_COMPARISON_PREDICATE = Stream.of(HIBERNATE_5_2_0_COMPARISON_PREDICATE, HIBERNATE_4_3_0_COMPARISON_PREDICATE, HIBERNATE_3_5_0_COMPARISON_PREDICATE).filter(Optional::isPresent).findFirst().orElse(Optional.empty());
+	private static final Optional<Class<Object>> HIBERNATE_SESSION_IMPLEMENTOR = findClass("org.hibernate.engine.spi.SessionImplementor");
+	private static final Optional<Class<Object>> HIBERNATE_PERSISTENCE_CONTEXT = findClass("org.hibernate.engine.spi.PersistenceContext");
+	private static final Optional<Class<Object>> HIBERNATE_SESSION_FACTORY_IMPLEMENTOR = findClass("org.hibernate.engine.spi.SessionFactoryImplementor");
+	private static final Optional<Class<Object>> HIBERNATE_METAMODEL_IMPLEMENTOR = findClass("org.hibernate.metamodel.spi.MetamodelImplementor");
+	private static final Optional<Class<Object>> HIBERNATE_ABSTRACT_ENTITY_PERSISTER = findClass("org.hibernate.persister.entity.AbstractEntityPersister");
+	private static final Optional<Class<Object>> HIBERNATE_QUERY = findClass("org.hibernate.query.Query");
+	private static final Optional<Class<Object>> HIBERNATE_SQL_FUNCTION_REGISTRY = findClass("org.hibernate.dialect.function.SQLFunctionRegistry");
 	private static final Optional<Class<Object>> ECLIPSELINK_FUNCTION_EXPRESSION_IMPL = findClass("org.eclipse.persistence.internal.jpa.querydef.FunctionExpressionImpl");
+	private static final Optional<Class<Object>> ECLIPSELINK_SESSION = findClass("org.eclipse.persistence.sessions.Session");
+	private static final Optional<Class<Object>> ECLIPSELINK_UNIT_OF_WORK = findClass("org.eclipse.persistence.sessions.UnitOfWork");
+	private static final Optional<Class<Object>> ECLIPSELINK_CLASS_DESCRIPTOR = findClass("org.eclipse.persistence.descriptors.ClassDescriptor");
+	private static final Optional<Class<Object>> ECLIPSELINK_DATABASE_MAPPING = findClass("org.eclipse.persistence.mappings.DatabaseMapping");
+	private static final Optional<Class<Object>> ECLIPSELINK_DATABASE_FIELD = findClass("org.eclipse.persistence.internal.helper.DatabaseField");
+	private static final Optional<Class<Object>> ECLIPSELINK_JPA_QUERY = findClass("org.eclipse.persistence.jpa.JpaQuery");
+	private static final Optional<Class<Object>> ECLIPSELINK_DATABASE_QUERY = findClass("org.eclipse.persistence.queries.DatabaseQuery");
+	private static final Optional<Class<Object>> ECLIPSELINK_EXPRESSION = findClass("org.eclipse.persistence.expressions.Expression");
+	private static final Optional<Class<Object>> ECLIPSELINK_JPA_CRITERIA_BUILDER = findClass("org.eclipse.persistence.jpa.JpaCriteriaBuilder");
+	private static final Optional<Class<Object>> OPENJPA_QUERY = findClass("org.apache.openjpa.persistence.OpenJPAQuery");
+	private static final Optional<Class<Object>> OPENJPA_ENTITY_MANAGER = findClass("org.apache.openjpa.persistence.OpenJPAEntityManager");
 	private static final Set<String> AGGREGATE_FUNCTIONS = unmodifiableSet("MIN", "MAX", "SUM", "AVG", "COUNT");
 
 	private static Object unwrapEntityManagerFactoryIfNecessary(EntityManagerFactory entityManagerFactory) {
@@ -170,6 +304,15 @@ public enum Provider {
 		return entityManagerFactory;
 	}
 
+	private static Method getMethod(Optional<Class<Object>> type, String name, Class<?>... parameterTypes) {
+		try {
+			return type.get().getMethod(name, parameterTypes);
+		}
+		catch (NoSuchMethodException e) {
+			throw new UnsupportedOperationException(e);
+		}
+	}
+
 	public static Provider of(EntityManager entityManager) {
 		String packageName = entityManager.getDelegate().getClass().getPackage().getName();
 
@@ -243,14 +386,105 @@ public enum Provider {
 		return entity == null ? null : entity.getId();
 	}
 
+	/**
+	 * Returns the entities of given IDs, obtained in chunks of given batch size. The returned list may contain
+	 * <code>null</code> for the IDs which don't exist and its ordering is unspecified.
+	 * @param entityManager The involved entity manager.
+	 * @param entityType The entity type.
+	 * @param ids The entity IDs.
+	 * @param batchSize The maximum amount of IDs per query.
+	 * @return The entities of given IDs.
+	 */
+	public <I extends Comparable<I> & Serializable, E extends BaseEntity<I>> List<E> multiLoad(EntityManager entityManager, Class<E> entityType, List<I> ids, int batchSize) {
+		List<E> entities = new ArrayList<>(ids.size());
+		TypedQuery<E> query = entityManager.createQuery("SELECT e FROM " + entityType.getSimpleName() + " e WHERE e.id IN (:ids)", entityType);
+
+		for (int i = 0; i < ids.size(); i += batchSize) {
+			entities.addAll(query.setParameter("ids", ids.subList(i, Math.min(i + batchSize, ids.size()))).getResultList());
+		}
+
+		return entities;
+	}
+
+	/**
+	 * Returns the expression which selects <code>COUNT(*) OVER()</code>, i.e. the total number of rows matching the
+	 * restrictions of the query regardless of its range, or <code>null</code> when this is not supported by the JPA
+	 * provider. With Hibernate, this requires a SQL function named {@link #HIBERNATE_WINDOWED_COUNT_FUNCTION} to be
+	 * registered, because its HQL parser doesn't support window functions. With EclipseLink, this is embedded as native
+	 * SQL. Whether the database supports window functions is not checked here, see
+	 * {@link Database#supportsWindowFunctions(EntityManager)}.
+	 * @param entityManagerFactory The entity manager factory.
+	 * @param criteriaBuilder The criteria builder.
+	 * @param root The (unwrapped) root of the criteria query.
+	 * @return The expression which selects <code>COUNT(*) OVER()</code>, or <code>null</code> when not supported.
+	 */
+	public Expression<Long> buildWindowedCount(EntityManagerFactory entityManagerFactory, CriteriaBuilder criteriaBuilder, Root<?> root) {
+		return null;
+	}
+
+	/**
+	 * Returns the statement which the JPA provider has generated for given query. Depending on the JPA provider, this
+	 * is either JPQL or SQL, and it may only be available after the query has been executed.
+	 * @param query The query.
+	 * @return The statement of given query, or <code>null</code> when it is not available, which is always the case for
+	 * {@link #UNKNOWN}.
+	 */
+	public String getQueryString(Query query) {
+		return null;
+	}
+
+	/**
+	 * Returns the entities which are currently managed by the persistence context of given entity manager, without
+	 * hitting the DB.
+	 * @param entityManager The entity manager.
+	 * @return A copy of the managed entities, or <code>null</code> when it is not available, which is always the case
+	 * for {@link #UNKNOWN}.
+	 */
+	public Collection<Object> getManagedEntities(EntityManager entityManager) {
+		return null;
+	}
+
+	/**
+	 * Returns the name of the single column to which the given attribute of the given entity type is mapped, as
+	 * resolved from the mapping metadata of the JPA provider, so that any naming strategy is taken into account.
+	 * @param entityManagerFactory The involved entity manager factory.
+	 * @param entityType The entity type.
+	 * @param attributeName The attribute name.
+	 * @return The column name, or <code>null</code> when the attribute is not mapped to a single column, or when the
+	 * JPA provider is not supported, which is currently the case for {@link #OPENJPA} and {@link #UNKNOWN}.
+	 */
+	public String getColumnName(EntityManagerFactory entityManagerFactory, Class<?> entityType, String attributeName) {
+		return null;
+	}
+
 	public <I extends Comparable<I> & Serializable, E extends BaseEntity<I>> String getTableName(E entity) {
 		if (entity == null) {
 			return null;
 		}
 
-		Class<E> entityType = getEntityType(entity);
+		return getTableName(getEntityType(entity));
+	}
+
+	public String getTableName(Class<?> entityType) {
 		Table table = entityType.getAnnotation(Table.class);
-		return table != null ? table.name() : entityType.getSimpleName().toUpperCase();
+		return (table != null && !table.name().isEmpty()) ? table.name() : entityType.getSimpleName().toUpperCase();
+	}
+
+	/**
+	 * Returns whether given entity type is mapped to a single table, i.e. it is not part of an inheritance hierarchy
+	 * and has no secondary tables, so that the table as returned by {@link #getTableName(Class)} holds all its rows
+	 * and columns.
+	 * @param entityType The entity type.
+	 * @return Whether given entity type is mapped to a single table.
+	 */
+	public boolean isSingleTable(Class<?> entityType) {
+		for (Class<?> type = entityType; type != null && type != Object.class; type = type.getSuperclass()) {
+			if (type.isAnnotationPresent(Inheritance.class) || (type != entityType && type.isAnnotationPresent(Entity.class))) {
+				return false;
+			}
+		}
+
+		return !entityType.isAnnotationPresent(SecondaryTable.class) && !entityType.isAnnotationPresent(SecondaryTables.class);
 	}
 
 }
@@ -22,4 +22,8 @@ public class NonDeletableEntityException extends BaseEntityException {
 		super(entity, null);
 	}
 
+	public NonDeletableEntityException(BaseEntity<?> entity, String message) {
+		super(entity, message);
+	}
+
 }
\ No newline at end of file
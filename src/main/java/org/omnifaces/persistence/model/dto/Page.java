@@ -14,13 +14,19 @@ package org.omnifaces.persistence.model.dto;
 
 import static java.lang.Boolean.TRUE;
 import static java.lang.Integer.MAX_VALUE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonMap;
 import static java.util.Collections.unmodifiableMap;
 import static org.omnifaces.persistence.model.Identifiable.ID;
 import static org.omnifaces.utils.Lang.isEmpty;
 
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.TreeMap;
@@ -45,6 +51,11 @@ public final class Page { // This class MAY NOT be mutable!
 	public final static Page ALL = Page.of(0, MAX_VALUE);
 	public final static Page ONE = Page.of(0, 1);
 
+	private static final String CURSOR_NEXT = "n";
+	private static final String CURSOR_PREVIOUS = "p";
+	private static final String CURSOR_SEPARATOR = ".";
+	private static final String CURSOR_NULL_VALUE = "~";
+
 
 	// Properties -----------------------------------------------------------------------------------------------------
 
@@ -52,9 +63,14 @@ public final class Page { // This class MAY NOT be mutable!
 	private final int limit;
 	private final Identifiable<?> last;
 	private final boolean reversed;
+	private final String cursor;
+	private final Map<String, String> cursorValues;
+	private final Boolean deferredJoin;
+	private final boolean probeNext;
 	private final Map<String, Boolean> ordering;
 	private final Map<String, Object> requiredCriteria;
 	private final Map<String, Object> optionalCriteria;
+	private final int hashCode;
 
 
 	// Constructors ---------------------------------------------------------------------------------------------------
@@ -83,13 +99,23 @@ public final class Page { // This class MAY NOT be mutable!
 	 * @param optionalCriteria Optional criteria. Map key represents property path and map value represents criteria. Each entity must match at least one of given criteria.
 	 */
 	public Page(Integer offset, Integer limit, Identifiable<?> last, Boolean reversed, LinkedHashMap<String, Boolean> ordering, Map<String, Object> requiredCriteria, Map<String, Object> optionalCriteria) {
-		this.offset = validateIntegerArgument("offset", offset, 0, 0);
+		this(offset, limit, last, reversed, null, null, false, ordering, requiredCriteria, optionalCriteria);
+	}
+
+	private Page(Integer offset, Integer limit, Identifiable<?> last, Boolean reversed, String cursor, Boolean deferredJoin, boolean probeNext, LinkedHashMap<String, Boolean> ordering, Map<String, Object> requiredCriteria, Map<String, Object> optionalCriteria) {
+		this.ordering = !isEmpty(ordering) ? unmodifiableMap(new LinkedHashMap<>(ordering)) : singletonMap(ID, false);
+		List<String> decodedCursor = (cursor != null) ? decodeCursor(cursor, this.ordering.size()) : null;
+		this.offset = (decodedCursor != null) ? Integer.parseInt(decodedCursor.get(0).substring(1)) : validateIntegerArgument("offset", offset, 0, 0);
 		this.limit = validateIntegerArgument("limit", limit, 1, MAX_VALUE);
 		this.last = last;
-		this.reversed = (last != null) && (reversed == TRUE);
-		this.ordering = !isEmpty(ordering) ? unmodifiableMap(ordering) : singletonMap(ID, false);
-		this.requiredCriteria = requiredCriteria != null ? unmodifiableMap(requiredCriteria) : emptyMap();
-		this.optionalCriteria = optionalCriteria != null ? unmodifiableMap(optionalCriteria) : emptyMap();
+		this.cursor = cursor;
+		this.cursorValues = (decodedCursor != null) ? mapCursorValues(this.ordering, decodedCursor.subList(1, decodedCursor.size())) : emptyMap();
+		this.reversed = (decodedCursor != null) ? decodedCursor.get(0).startsWith(CURSOR_PREVIOUS) : (last != null) && (reversed == TRUE);
+		this.deferredJoin = deferredJoin;
+		this.probeNext = probeNext;
+		this.requiredCriteria = requiredCriteria != null ? unmodifiableMap(new LinkedHashMap<>(requiredCriteria)) : emptyMap();
+		this.optionalCriteria = optionalCriteria != null ? unmodifiableMap(new LinkedHashMap<>(optionalCriteria)) : emptyMap();
+		this.hashCode = Objects.hash(Page.class, this.offset, this.limit, this.reversed, cursor, deferredJoin, probeNext, this.ordering, this.requiredCriteria, this.optionalCriteria); // The last entity is mutable, so it is left out.
 	}
 
 	private static int validateIntegerArgument(String argumentName, Integer argumentValue, int minValue, int defaultValue) {
@@ -104,6 +130,63 @@ public final class Page { // This class MAY NOT be mutable!
 		return argumentValue;
 	}
 
+	private static List<String> decodeCursor(String cursor, int orderingSize) {
+		List<String> decodedCursor = new ArrayList<>(orderingSize + 1);
+
+		try {
+			Iterator<String> segments = asList(cursor.split("\\" + CURSOR_SEPARATOR, -1)).iterator();
+			String position = segments.next();
+
+			if (!position.matches("[" + CURSOR_NEXT + CURSOR_PREVIOUS + "][0-9]{1,10}") || Long.parseLong(position.substring(1)) > MAX_VALUE) {
+				throw new IllegalArgumentException(position);
+			}
+
+			decodedCursor.add(position);
+
+			while (segments.hasNext()) {
+				String value = segments.next();
+				decodedCursor.add(CURSOR_NULL_VALUE.equals(value) ? null : new String(Base64.getUrlDecoder().decode(value), UTF_8));
+			}
+		}
+		catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Argument 'cursor' is malformed", e);
+		}
+
+		if (decodedCursor.size() != 1 && decodedCursor.size() != orderingSize + 1) {
+			throw new IllegalArgumentException("Argument 'cursor' does not match ordering");
+		}
+
+		return decodedCursor;
+	}
+
+	private static Map<String, String> mapCursorValues(Map<String, Boolean> ordering, List<String> values) {
+		if (values.isEmpty()) {
+			return emptyMap();
+		}
+
+		Map<String, String> cursorValues = new LinkedHashMap<>(ordering.size());
+		Iterator<String> iterator = values.iterator();
+		ordering.keySet().forEach(field -> cursorValues.put(field, iterator.next()));
+		return unmodifiableMap(cursorValues);
+	}
+
+	/**
+	 * Encodes the cursor of a page starting at given offset, with given ordering values of the boundary entity.
+	 * @param reversed Whether the page precedes the boundary entity.
+	 * @param offset Zero-based offset of the page.
+	 * @param values Ordering values of the boundary entity, or an empty list when unavailable.
+	 * @return The encoded cursor.
+	 */
+	static String encodeCursor(boolean reversed, int offset, List<String> values) {
+		StringBuilder cursor = new StringBuilder(reversed ? CURSOR_PREVIOUS : CURSOR_NEXT).append(offset);
+
+		for (String value : values) {
+			cursor.append(CURSOR_SEPARATOR).append((value == null) ? CURSOR_NULL_VALUE : Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(UTF_8)));
+		}
+
+		return cursor.toString();
+	}
+
 
 	// Getters --------------------------------------------------------------------------------------------------------
 
@@ -132,9 +215,47 @@ public final class Page { // This class MAY NOT be mutable!
 		return last;
 	}
 
+	/**
+	 * Returns the cursor this page was built with, if any.
+	 * @return The cursor this page was built with, if any.
+	 * @see Builder#cursor(String)
+	 */
+	public String getCursor() {
+		return cursor;
+	}
+
+	/**
+	 * Returns the ordering values of the boundary entity as encoded in the cursor, if any. Map key represents property
+	 * path and map value represents the raw value, which may be <code>null</code>. If not empty and {@link #getLast()}
+	 * is <code>null</code>, then value based paging will be performed based on these values when applicable.
+	 * @return The ordering values of the boundary entity as encoded in the cursor, if any.
+	 */
+	public Map<String, String> getCursorValues() {
+		return cursorValues;
+	}
+
+	/**
+	 * Returns whether a deferred join will be performed when offset based paging is used. If <code>null</code>, then
+	 * this is automatically decided based on the offset and the fetched collections.
+	 * @return Whether a deferred join will be performed when offset based paging is used.
+	 * @see Builder#deferredJoin(boolean)
+	 */
+	public Boolean getDeferredJoin() {
+		return deferredJoin;
+	}
+
+	/**
+	 * Returns whether one more entity than the limit will be selected in order to determine whether there is a next page.
+	 * @return Whether one more entity than the limit will be selected in order to determine whether there is a next page.
+	 * @see Builder#probeNext(boolean)
+	 */
+	public boolean isProbeNext() {
+		return probeNext;
+	}
+
 	/**
 	 * Returns whether the value based paging is reversed.
-	 * This is only used when {@link #getLast()} is not <code>null</code>.
+	 * This is only used when {@link #getLast()} or {@link #getCursorValues()} is not empty.
 	 * @return Whether the value based paging is reversed.
 	 */
 	public boolean isReversed() {
@@ -184,6 +305,9 @@ public final class Page { // This class MAY NOT be mutable!
 			&& Objects.equals(limit, other.limit)
 			&& Objects.equals(last, other.last)
 			&& Objects.equals(reversed, other.reversed)
+			&& Objects.equals(cursor, other.cursor)
+			&& Objects.equals(deferredJoin, other.deferredJoin)
+			&& Objects.equals(probeNext, other.probeNext)
 			&& Objects.equals(ordering, other.ordering)
 			&& Objects.equals(requiredCriteria, other.requiredCriteria)
 			&& Objects.equals(optionalCriteria, other.optionalCriteria);
@@ -191,7 +315,7 @@ public final class Page { // This class MAY NOT be mutable!
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(Page.class, offset, limit, last, reversed, ordering, requiredCriteria, optionalCriteria);
+		return hashCode; // Precomputed as this class is immutable and is frequently used as cache key.
 	}
 
 	@Override
@@ -201,6 +325,9 @@ public final class Page { // This class MAY NOT be mutable!
 			.append(limit).append(",")
 			.append(last).append(",")
 			.append(reversed).append(",")
+			.append(cursor).append(",")
+			.append(deferredJoin).append(",")
+			.append(probeNext).append(",")
 			.append(ordering).append(",")
 			.append(new TreeMap<>(requiredCriteria)).append(",")
 			.append(new TreeMap<>(optionalCriteria)).append("]").toString();
@@ -243,6 +370,9 @@ public final class Page { // This class MAY NOT be mutable!
 
 		private Integer offset;
 		private Integer limit;
+		private String cursor;
+		private Boolean deferredJoin;
+		private boolean probeNext;
 		private LinkedHashMap<String, Boolean> ordering = new LinkedHashMap<>(2);
 		private Map<String, Object> requiredCriteria;
 		private Map<String, Object> optionalCriteria;
@@ -264,6 +394,56 @@ public final class Page { // This class MAY NOT be mutable!
 			return this;
 		}
 
+		/**
+		 * Set the cursor as obtained from {@link PagedResultList#getNextCursor()} or {@link PagedResultList#getPreviousCursor()}
+		 * of a page with the same ordering and criteria. The cursor determines the offset, overriding the one of
+		 * {@link #range(int, int)}, and value based paging will be performed from the boundary entity of that page when
+		 * applicable. The limit must still be set via {@link #range(int, int)}.
+		 * @param cursor The cursor.
+		 * @return This builder.
+		 * @throws IllegalStateException When another cursor is already set in this builder.
+		 */
+		public Builder cursor(String cursor) {
+			if (this.cursor != null) {
+				throw new IllegalStateException("Cursor is already set");
+			}
+
+			this.cursor = cursor;
+			return this;
+		}
+
+		/**
+		 * Set whether a deferred join should be performed when offset based paging is used. A deferred join will first
+		 * select only the IDs of the entities within the range and then select the entities by those IDs. This is on
+		 * large offsets and wide rows faster than letting the database read and skip all rows before the offset. When
+		 * not set, then this is automatically decided based on the offset and the fetched collections, see
+		 * {@link BaseEntityService#getDeferredJoinOffsetThreshold()}.
+		 * @param deferredJoin Whether a deferred join should be performed when offset based paging is used.
+		 * @return This builder.
+		 * @throws IllegalStateException When another deferred join is already set in this builder.
+		 */
+		public Builder deferredJoin(boolean deferredJoin) {
+			if (this.deferredJoin != null) {
+				throw new IllegalStateException("Deferred join is already set");
+			}
+
+			this.deferredJoin = deferredJoin;
+			return this;
+		}
+
+		/**
+		 * Set whether one more entity than the limit should be selected in order to determine whether there is a next
+		 * page, see {@link PagedResultList#hasNext()}. The additional entity is not returned. This is cheaper than
+		 * counting the total number of results when only the presence of a next page is of interest, such as during
+		 * infinite scrolling. Defaults to <code>false</code>.
+		 * @param probeNext Whether one more entity than the limit should be selected.
+		 * @return This builder.
+		 */
+		public Builder probeNext(boolean probeNext) {
+			this.probeNext = probeNext;
+			return this;
+		}
+
 		/**
 		 * Set the ordering. This can be invoked multiple times and will be remembered in same order. The default ordering is <code>{"id",false}</code>.
 		 * @param field The field.
@@ -310,9 +490,10 @@ public final class Page { // This class MAY NOT be mutable!
 		/**
 		 * Build the page.
 		 * @return The built page.
+		 * @throws IllegalArgumentException When the cursor is malformed or does not match the ordering.
 		 */
 		public Page build() {
-			return new Page(offset, limit, ordering, requiredCriteria, optionalCriteria);
+			return new Page(offset, limit, null, null, cursor, deferredJoin, probeNext, ordering, requiredCriteria, optionalCriteria);
 		}
 
 	}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.model.dto;
+
+import static java.lang.Math.max;
+import static java.util.Collections.emptyList;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import org.omnifaces.persistence.service.BaseEntityService;
+import org.omnifaces.utils.collection.PartialResultList;
+
+/**
+ * <p>
+ * This class represents the result of a {@link Page} as returned by {@link BaseEntityService#getPage(Page, boolean)}.
+ * Next to the offset and the estimated total number of results, it exposes opaque cursors which can be passed to
+ * {@link Page.Builder#cursor(String)} in order to obtain the next or previous page without having to pass the last
+ * entity around. The cursors are compact and URL-safe, so they can be sent to and received from the client as is.
+ * <p>
+ * The <code>getPage()</code> methods are declared to return a {@link PartialResultList}. Use {@link #of(PartialResultList)}
+ * in order to access the cursors:
+ * <pre>
+ * PagedResultList&lt;Foo&gt; foos = PagedResultList.of(fooService.getPage(page, false));
+ * String nextCursor = foos.getNextCursor();
+ * </pre>
+ *
+ * @param <E> The generic result type.
+ * @see Page
+ */
+public class PagedResultList<E> extends PartialResultList<E> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final boolean hasNext;
+	private final String previousCursor;
+	private final String nextCursor;
+	private transient IntSupplier lazyCount;
+	private Integer lazyEstimatedTotalNumberOfResults;
+
+	/**
+	 * Creates a new PagedResultList.
+	 * @param list The results of the page.
+	 * @param page The page.
+	 * @param estimatedTotalNumberOfResults The estimated total number of results, or -1 when not counted.
+	 * @param hasNext Whether there is a next page.
+	 * @param firstValues The ordering values of the first result, or <code>null</code> when unavailable.
+	 * @param lastValues The ordering values of the last result, or <code>null</code> when unavailable.
+	 */
+	public PagedResultList(List<E> list, Page page, int estimatedTotalNumberOfResults, boolean hasNext, List<String> firstValues, List<String> lastValues) {
+		super(list, page.getOffset(), estimatedTotalNumberOfResults);
+		boolean hasPrevious = page.getOffset() > 0;
+		this.hasNext = hasNext;
+		this.previousCursor = hasPrevious ? Page.encodeCursor(true, max(0, page.getOffset() - page.getLimit()), list.isEmpty() || firstValues == null ? emptyList() : firstValues) : null;
+		this.nextCursor = hasNext ? Page.encodeCursor(false, page.getOffset() + list.size(), lastValues == null ? emptyList() : lastValues) : null;
+	}
+
+	/**
+	 * Creates a new PagedResultList based on given PagedResultList whose estimated total number of results is obtained
+	 * from given lazy count on first access of {@link #getEstimatedTotalNumberOfResults()}.
+	 * @param resultList The PagedResultList which was not counted.
+	 * @param lazyCount The lazy count.
+	 */
+	public PagedResultList(PagedResultList<E> resultList, IntSupplier lazyCount) {
+		super(resultList, resultList.getOffset(), UNKNOWN_NUMBER_OF_RESULTS);
+		this.hasNext = resultList.hasNext;
+		this.previousCursor = resultList.previousCursor;
+		this.nextCursor = resultList.nextCursor;
+		this.lazyCount = lazyCount;
+	}
+
+	/**
+	 * Returns given partial result list as paged result list.
+	 * @param <E> The generic result type.
+	 * @param resultList The partial result list as returned by {@link BaseEntityService#getPage(Page, boolean)}.
+	 * @return Given partial result list as paged result list.
+	 * @throws IllegalArgumentException When given partial result list is not a paged result list, i.e. when it was not
+	 * returned by {@link BaseEntityService#getPage(Page, boolean)}.
+	 */
+	public static <E> PagedResultList<E> of(PartialResultList<E> resultList) {
+		if (!(resultList instanceof PagedResultList)) {
+			throw new IllegalArgumentException("Result list is not obtained from BaseEntityService#getPage()");
+		}
+
+		return (PagedResultList<E>) resultList;
+	}
+
+	/**
+	 * Returns the estimated total number of results. When this was constructed with a lazy count, then it will be
+	 * invoked on first access and its result will be remembered. When the lazy count fails, it will be retried on next
+	 * access.
+	 * @return The estimated total number of results, or -1 when not counted.
+	 */
+	@Override
+	public int getEstimatedTotalNumberOfResults() {
+		if (lazyCount != null) {
+			lazyEstimatedTotalNumberOfResults = lazyCount.getAsInt();
+			lazyCount = null;
+		}
+
+		return (lazyEstimatedTotalNumberOfResults != null) ? lazyEstimatedTotalNumberOfResults : super.getEstimatedTotalNumberOfResults();
+	}
+
+	/**
+	 * Returns whether there is a next page. This is exact when the page was counted or when {@link Page#isProbeNext()}
+	 * is set. Otherwise this is only guessed based on whether the page is full.
+	 * @return Whether there is a next page.
+	 */
+	public boolean hasNext() {
+		return hasNext;
+	}
+
+	/**
+	 * Returns the cursor of the previous page, or <code>null</code> when this is the first page.
+	 * @return The cursor of the previous page.
+	 */
+	public String getPreviousCursor() {
+		return previousCursor;
+	}
+
+	/**
+	 * Returns the cursor of the next page, or <code>null</code> when there are no more results.
+	 * @return The cursor of the next page.
+	 */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+}
@@ -12,13 +12,24 @@
  */
 package org.omnifaces.persistence.service;
 
+import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
 import static java.lang.Integer.MAX_VALUE;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
 import static java.util.Collections.unmodifiableSet;
+import static java.util.Comparator.comparing;
 import static java.util.Optional.ofNullable;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.function.Function.identity;
 import static java.util.logging.Level.FINE;
 import static java.util.logging.Level.FINER;
 import static java.util.logging.Level.WARNING;
@@ -28,6 +39,10 @@ import static java.util.stream.Collectors.toSet;
 import static java.util.stream.IntStream.range;
 import static javax.persistence.CacheRetrieveMode.BYPASS;
 import static javax.persistence.metamodel.PluralAttribute.CollectionType.MAP;
+import static javax.transaction.Status.STATUS_ACTIVE;
+import static javax.transaction.Status.STATUS_COMMITTED;
+import static org.omnifaces.persistence.Database.H2;
+import static org.omnifaces.persistence.Database.MYSQL;
 import static org.omnifaces.persistence.Database.POSTGRESQL;
 import static org.omnifaces.persistence.JPA.QUERY_HINT_CACHE_RETRIEVE_MODE;
 import static org.omnifaces.persistence.JPA.QUERY_HINT_CACHE_STORE_MODE;
@@ -38,9 +53,12 @@ import static org.omnifaces.persistence.JPA.getValidationMode;
 import static org.omnifaces.persistence.Provider.ECLIPSELINK;
 import static org.omnifaces.persistence.Provider.HIBERNATE;
 import static org.omnifaces.persistence.Provider.OPENJPA;
+import static org.omnifaces.persistence.Provider.QUERY_HINT_ECLIPSELINK_FETCH_SIZE;
 import static org.omnifaces.persistence.Provider.QUERY_HINT_ECLIPSELINK_MAINTAIN_CACHE;
 import static org.omnifaces.persistence.Provider.QUERY_HINT_ECLIPSELINK_REFRESH;
 import static org.omnifaces.persistence.Provider.QUERY_HINT_HIBERNATE_CACHEABLE;
+import static org.omnifaces.persistence.Provider.QUERY_HINT_HIBERNATE_FETCH_SIZE;
+import static org.omnifaces.persistence.Provider.QUERY_HINT_OPENJPA_FETCH_SIZE;
 import static org.omnifaces.persistence.model.Identifiable.ID;
 import static org.omnifaces.utils.Lang.capitalize;
 import static org.omnifaces.utils.Lang.coalesce;
@@ -52,10 +70,16 @@ import static org.omnifaces.utils.reflect.Reflections.invokeMethod;
 import static org.omnifaces.utils.reflect.Reflections.invokeSetter;
 import static org.omnifaces.utils.reflect.Reflections.listAnnotatedFields;
 import static org.omnifaces.utils.reflect.Reflections.map;
+import static org.omnifaces.utils.reflect.Reflections.modifyField;
+import static org.omnifaces.utils.stream.Collectors.forEachBatch;
 import static org.omnifaces.utils.stream.Streams.stream;
 
 import java.io.Serializable;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.time.Instant;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -70,23 +94,39 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
 import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
+import javax.enterprise.inject.Instance;
 import javax.enterprise.inject.spi.CDI;
 import javax.naming.InitialContext;
+import javax.persistence.Cache;
 import javax.persistence.CacheRetrieveMode;
 import javax.persistence.CacheStoreMode;
+import javax.persistence.CascadeType;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.EntityGraph;
+import javax.persistence.EntityListeners;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityNotFoundException;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
@@ -96,9 +136,12 @@ import javax.persistence.NonUniqueResultException;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.PersistenceContext;
+import javax.persistence.PostRemove;
+import javax.persistence.PreRemove;
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import javax.persistence.ValidationMode;
+import javax.persistence.Version;
 import javax.persistence.criteria.AbstractQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
@@ -110,12 +153,17 @@ import javax.persistence.criteria.ParameterExpression;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
 import javax.persistence.criteria.Subquery;
 import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.Bindable;
 import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.ManagedType;
 import javax.persistence.metamodel.PluralAttribute;
 import javax.persistence.metamodel.PluralAttribute.CollectionType;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.Validator;
@@ -129,19 +177,26 @@ import org.omnifaces.persistence.criteria.Enumerated;
 import org.omnifaces.persistence.criteria.IgnoreCase;
 import org.omnifaces.persistence.criteria.Not;
 import org.omnifaces.persistence.criteria.Numeric;
+import org.omnifaces.persistence.event.Created;
+import org.omnifaces.persistence.event.Deleted;
+import org.omnifaces.persistence.event.Updated;
 import org.omnifaces.persistence.exception.IllegalEntityStateException;
 import org.omnifaces.persistence.exception.NonDeletableEntityException;
 import org.omnifaces.persistence.exception.NonSoftDeletableEntityException;
+import org.omnifaces.persistence.listener.BaseEntityListener;
 import org.omnifaces.persistence.model.BaseEntity;
 import org.omnifaces.persistence.model.EnumMapping;
 import org.omnifaces.persistence.model.GeneratedIdEntity;
 import org.omnifaces.persistence.model.NonDeletable;
 import org.omnifaces.persistence.model.SoftDeletable;
+import org.omnifaces.persistence.model.Timestamped;
 import org.omnifaces.persistence.model.TimestampedBaseEntity;
 import org.omnifaces.persistence.model.TimestampedEntity;
+import org.omnifaces.persistence.model.Versioned;
 import org.omnifaces.persistence.model.VersionedBaseEntity;
 import org.omnifaces.persistence.model.VersionedEntity;
 import org.omnifaces.persistence.model.dto.Page;
+import org.omnifaces.persistence.model.dto.PagedResultList;
 import org.omnifaces.utils.collection.PartialResultList;
 import org.omnifaces.utils.reflect.Getter;
 
@@ -169,7 +224,8 @@ import org.omnifaces.utils.reflect.Getter;
  * <li>{@link Level#FINE} will log computed type mapping (the actual values of <code>I</code> and <code>E</code> type paramters), and
  * whether the ID is generated, and whether the entity is {@link SoftDeletable}, and whether any {@link EnumMapping} is modified, and
  * any discovered {@link ElementCollection}, {@link ManyToOne}, {@link OneToOne} and {@link OneToMany} mappings of the entity. This is
- * internally used in order to be able to build proper queries to perform a search inside those fields.
+ * internally used in order to be able to build proper queries to perform a search inside those fields. It will also log every newly
+ * generated page statement, see {@link #getPageStatementCount()}.
  * <li>{@link Level#INFO} will log both successful and unsuccessful attempts to modify enum representations basing on {@link EnumMapping}.
  * <li>{@link Level#WARNING} will log unparseable or illegal criteria values. The {@link BaseEntityService} will skip them and continue.
  * <li>{@link Level#SEVERE} will log constraint violations wrapped in any {@link ConstraintViolationException} during
@@ -189,15 +245,21 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 
 	private static final Logger logger = Logger.getLogger(BaseEntityService.class.getName());
 
-	private static final String LOG_FINER_GET_PAGE = "Get page: %s, count=%s, cacheable=%s, resultType=%s";
+	private static final String LOG_FINER_GET_PAGE = "Get page: %s, count=%s, lazyCount=%s, cacheable=%s, resultType=%s";
+	private static final String LOG_FINER_LAZY_COUNT = "Lazy count of page: %s, estimatedTotalNumberOfResults=%s";
 	private static final String LOG_FINER_SET_PARAMETER_VALUES = "Set parameter values: %s";
 	private static final String LOG_FINER_QUERY_RESULT = "Query result: %s, estimatedTotalNumberOfResults=%s";
+	private static final String LOG_FINER_ESTIMATED_ROW_COUNT = "Estimated row count of %s: %s, exactCountThreshold=%s";
+	private static final String LOG_FINER_CURSOR_VALUES_UNAVAILABLE = "Cursor values unavailable for ordering %s, falling back to offset";
 	private static final String LOG_FINE_COMPUTED_TYPE_MAPPING = "Computed type mapping for %s: <%s, %s>";
 	private static final String LOG_FINE_COMPUTED_GENERATED_ID_MAPPING = "Computed generated ID mapping for %s: %s";
 	private static final String LOG_FINE_COMPUTED_SOFT_DELETE_MAPPING = "Computed soft delete mapping for %s: %s";
 	private static final String LOG_FINE_COMPUTED_ELEMENTCOLLECTION_MAPPING = "Computed @ElementCollection mapping for %s: %s";
 	private static final String LOG_FINE_COMPUTED_MANY_OR_ONE_TO_ONE_MAPPING = "Computed @ManyToOne/@OneToOne mapping for %s: %s";
 	private static final String LOG_FINE_COMPUTED_ONE_TO_MANY_MAPPING = "Computed @OneToMany mapping for %s: %s";
+	private static final String LOG_FINE_COMPUTED_BULK_DELETE_MAPPING = "Computed bulk delete mapping for %s: %s";
+	private static final String LOG_FINE_COMPUTED_UPSERT_MAPPING = "Computed upsert mapping for %s: %s";
+	private static final String LOG_FINE_COMPUTED_WINDOW_FUNCTION_MAPPING = "Computed window function mapping for %s: %s";
 	private static final String LOG_WARNING_ILLEGAL_CRITERIA_VALUE = "Cannot parse predicate for %s(%s) = %s(%s), skipping!";
 	private static final String LOG_SEVERE_CONSTRAINT_VIOLATION = "javax.validation.ConstraintViolation: @%s %s#%s %s on %s";
 
@@ -209,8 +271,24 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		"Sorry, EclipseLink does not support sorting a @OneToMany or @ElementCollection relationship. Consider using a DTO or a DB view instead.";
 	private static final String ERROR_UNSUPPORTED_ONETOMANY_ORDERBY_OPENJPA =
 		"Sorry, OpenJPA does not support sorting a @OneToMany or @ElementCollection relationship. Consider using a DTO or a DB view instead.";
+	private static final String ERROR_LAZY_COUNT_UNAVAILABLE =
+		"Lazy count of page %s failed. Make sure that getEstimatedTotalNumberOfResults() is accessed while the persistence context is still usable.";
 	private static final String ERROR_UNSUPPORTED_ONETOMANY_CRITERIA_ECLIPSELINK =
 		"Sorry, EclipseLink does not support searching in a @OneToMany relationship. Consider using a DTO or a DB view instead.";
+	private static final String ERROR_NON_DELETABLE_IDS =
+		"Entity %s is non-deletable, so entities with IDs %s cannot be deleted.";
+
+	private static final int MAX_IDS_IN_MESSAGE = 10;
+	private static final int DEFAULT_BATCH_SIZE = 50;
+	private static final int DEFAULT_MAX_IN_CLAUSE_SIZE = 1000;
+	private static final int DEFAULT_FETCH_SIZE = 500;
+	private static final int DEFAULT_DEFERRED_JOIN_OFFSET_THRESHOLD = 1000;
+	private static final long DEFAULT_PAGE_CACHE_TIME_TO_LIVE = 60000;
+	private static final long DEFAULT_NEAR_CACHE_TIME_TO_LIVE = 60000;
+	private static final long DEFAULT_NEAR_CACHE_NEGATIVE_TIME_TO_LIVE = 1000;
+	private static final char REQUIRED_CRITERIA = 'r';
+	private static final char OPTIONAL_CRITERIA = 'o';
+	private static final char PAGING_CRITERIA = 'p';
 
 	@SuppressWarnings("rawtypes")
 	private static final Map<Class<? extends BaseEntityService>, Entry<Class<?>, Class<?>>> TYPE_MAPPINGS = new ConcurrentHashMap<>();
@@ -219,6 +297,9 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	private static final Map<Class<? extends BaseEntity<?>>, Set<String>> ELEMENT_COLLECTION_MAPPINGS = new ConcurrentHashMap<>();
 	private static final Map<Class<? extends BaseEntity<?>>, Set<String>> MANY_OR_ONE_TO_ONE_MAPPINGS = new ConcurrentHashMap<>();
 	private static final Map<Class<? extends BaseEntity<?>>, Set<String>> ONE_TO_MANY_MAPPINGS = new ConcurrentHashMap<>();
+	private static final Map<Class<? extends BaseEntity<?>>, Boolean> BULK_DELETE_MAPPINGS = new ConcurrentHashMap<>();
+	private static final Map<Class<? extends BaseEntity<?>>, UpsertData> UPSERT_MAPPINGS = new ConcurrentHashMap<>();
+	private static final Map<Class<? extends BaseEntity<?>>, Boolean> WINDOW_FUNCTION_MAPPINGS = new ConcurrentHashMap<>();
 
 	private final Class<I> identifierType;
 	private final Class<E> entityType;
@@ -230,11 +311,20 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	private Set<String> elementCollections = emptySet();
 	private Set<String> manyOrOneToOnes = emptySet();
 	private java.util.function.Predicate<String> oneToManys = field -> false;
+	private boolean bulkDeletable;
+	private boolean arrayBindable;
+	private String idsRestriction = "e.id IN (:ids)";
+	private UpsertData upsertData;
 	private Validator validator;
+	private Optional<Validator> optionalValidator;
+	private final BaseEntityListener entityListener = new BaseEntityListener(); // Fires the entity events of bulk statements.
 
 	@PersistenceContext
 	private EntityManager entityManager;
 
+	@Resource
+	private TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
 
 	// Init -----------------------------------------------------------------------------------------------------------
 
@@ -261,6 +351,12 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		elementCollections = ELEMENT_COLLECTION_MAPPINGS.computeIfAbsent(entityType, this::computeElementCollectionMapping);
 		manyOrOneToOnes = MANY_OR_ONE_TO_ONE_MAPPINGS.computeIfAbsent(entityType, this::computeManyOrOneToOneMapping);
 		oneToManys = field -> ONE_TO_MANY_MAPPINGS.computeIfAbsent(entityType, this::computeOneToManyMapping).stream().anyMatch(oneToMany -> field.startsWith(oneToMany + '.'));
+		bulkDeletable = BULK_DELETE_MAPPINGS.computeIfAbsent(entityType, this::computeBulkDeleteMapping);
+		// PostgreSQL and H2 can match a single array parameter with = ANY(?) instead of an IN clause with a placeholder per value.
+		// Hibernate can't bind a Java array without a custom type and OpenJPA doesn't support FUNCTION(), so only EclipseLink.
+		arrayBindable = (database == POSTGRESQL || database == H2) && provider == ECLIPSELINK;
+		idsRestriction = arrayBindable ? "e.id = FUNCTION('ANY', :ids)" : "e.id IN (:ids)";
+		upsertData = UPSERT_MAPPINGS.computeIfAbsent(entityType, this::computeUpsertMapping);
 
 		if (getValidationMode(getEntityManager()) == ValidationMode.CALLBACK) {
 			validator = CDI.current().select(Validator.class).get();
@@ -306,6 +402,99 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		return oneToManyMapping;
 	}
 
+	private boolean computeBulkDeleteMapping(Class<? extends BaseEntity<?>> entityType) {
+		boolean bulkDeletable = !hasRemoveCallbacks(entityType) && !hasRemoveCascades(getEntityManager().getMetamodel().entity(entityType));
+		logger.log(FINE, () -> format(LOG_FINE_COMPUTED_BULK_DELETE_MAPPING, entityType, bulkDeletable));
+		return bulkDeletable;
+	}
+
+	private UpsertData computeUpsertMapping(Class<? extends BaseEntity<?>> entityType) {
+		UpsertData upsertData = new UpsertData(getEntityManager().getMetamodel().entity(entityType), getProvider(), getEntityManager().getEntityManagerFactory());
+		logger.log(FINE, () -> format(LOG_FINE_COMPUTED_UPSERT_MAPPING, entityType, upsertData));
+		return upsertData;
+	}
+
+	private boolean computeWindowFunctionMapping(Class<? extends BaseEntity<?>> entityType) {
+		boolean windowFunctionSupported = getDatabase().supportsWindowFunctions(getEntityManager());
+		logger.log(FINE, () -> format(LOG_FINE_COMPUTED_WINDOW_FUNCTION_MAPPING, entityType, windowFunctionSupported));
+		return windowFunctionSupported;
+	}
+
+	private static boolean hasRemoveCallbacks(Class<?> entityType) {
+		for (Class<?> type = entityType; type != null && type != Object.class; type = type.getSuperclass()) {
+			if (hasRemoveCallbackMethods(type)) {
+				return true;
+			}
+
+			EntityListeners entityListeners = type.getAnnotation(EntityListeners.class);
+
+			if (entityListeners != null && stream(entityListeners.value()).anyMatch(listener -> listener != BaseEntityListener.class && hasRemoveCallbackMethods(listener))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean hasRemoveCallbackMethods(Class<?> type) {
+		return stream(type.getDeclaredMethods()).anyMatch(method -> method.isAnnotationPresent(PreRemove.class) || method.isAnnotationPresent(PostRemove.class));
+	}
+
+	private static boolean hasRemoveCascades(ManagedType<?> type) {
+		for (Attribute<?, ?> attribute : type.getAttributes()) {
+			switch (attribute.getPersistentAttributeType()) {
+				case ELEMENT_COLLECTION:
+				case MANY_TO_MANY:
+					return true;
+				case EMBEDDED:
+					if (hasRemoveCascades((ManagedType<?>) ((SingularAttribute<?, ?>) attribute).getType())) {
+						return true;
+					}
+					break;
+				case ONE_TO_MANY:
+				case ONE_TO_ONE:
+				case MANY_TO_ONE:
+					if (hasRemoveCascade(attribute.getJavaMember())) {
+						return true;
+					}
+					break;
+				default:
+					break;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean hasRemoveCascade(Member member) {
+		if (!(member instanceof AnnotatedElement)) {
+			return true; // Can't tell, so be conservative.
+		}
+
+		AnnotatedElement annotatedElement = (AnnotatedElement) member;
+		OneToMany oneToMany = annotatedElement.getAnnotation(OneToMany.class);
+		OneToOne oneToOne = annotatedElement.getAnnotation(OneToOne.class);
+		ManyToOne manyToOne = annotatedElement.getAnnotation(ManyToOne.class);
+
+		if (oneToMany != null) {
+			// The owning side, i.e. without mappedBy, has a join table or join column whose rows are not removed by a bulk DELETE.
+			return oneToMany.mappedBy().isEmpty() || oneToMany.orphanRemoval() || isRemoveCascade(oneToMany.cascade());
+		}
+		else if (oneToOne != null) {
+			return oneToOne.orphanRemoval() || isRemoveCascade(oneToOne.cascade());
+		}
+		else if (manyToOne != null) {
+			return isRemoveCascade(manyToOne.cascade());
+		}
+		else {
+			return true; // Mapped via XML, so be conservative.
+		}
+	}
+
+	private static boolean isRemoveCascade(CascadeType... cascadeTypes) {
+		return stream(cascadeTypes).anyMatch(cascadeType -> cascadeType == CascadeType.ALL || cascadeType == CascadeType.REMOVE);
+	}
+
 	private Set<String> computeEntityMapping(Class<?> type, String basePath, Set<Class<?>> nestedTypes, java.util.function.Predicate<Attribute<?, ?>> attributePredicate) {
 		Set<String> entityMapping = new HashSet<>(2);
 		EntityType<?> entity = getEntityManager().getMetamodel().entity(type);
@@ -370,6 +559,247 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		return generatedId;
 	}
 
+	/**
+	 * Returns the amount of entities to process before the persistence context is flushed and cleared during batch
+	 * operations such as {@link #persist(Iterable)}. Defaults to <code>50</code>. You can override this to return a
+	 * different value, ideally the same as the JDBC batch size configured in the JPA provider.
+	 * @return The amount of entities to process before the persistence context is flushed and cleared.
+	 */
+	protected int getBatchSize() {
+		return DEFAULT_BATCH_SIZE;
+	}
+
+	/**
+	 * Returns the maximum amount of values in a single <code>IN</code> clause during set based operations such as
+	 * {@link #getByIds(Iterable)} and {@link #deleteByIds(Iterable)}. Larger sets of values will be split over multiple
+	 * statements. Smaller sets of values will be padded to the next power of two by repeating the last value, so that
+	 * the amount of distinct statements stays bounded. This also applies to collection criteria in
+	 * {@link #getPage(Page, boolean)}. Defaults to <code>1000</code>, which is the lowest limit among the commonly used
+	 * databases. You can override this to return a different value. On PostgreSQL and H2 with EclipseLink, the IDs and
+	 * numeric collection criteria will instead be bound as a single array parameter using <code>= ANY(?)</code>. This
+	 * is not possible with Hibernate, because Hibernate 5 cannot bind a Java array as query parameter without a custom
+	 * type registered on the entity, nor with OpenJPA, because it does not support <code>FUNCTION()</code> in JPQL.
+	 * @return The maximum amount of values in a single <code>IN</code> clause.
+	 */
+	protected int getMaxInClauseSize() {
+		return DEFAULT_MAX_IN_CLAUSE_SIZE;
+	}
+
+	/**
+	 * Returns the amount of entities to fetch per query and per JDBC roundtrip during streaming operations such as
+	 * {@link #getStream(Page)}. This also represents the amount of entities held in the persistence context at once during
+	 * streaming. Defaults to <code>500</code>. You can override this to return a different value.
+	 * @return The amount of entities to fetch per query and per JDBC roundtrip during streaming operations.
+	 */
+	protected int getFetchSize() {
+		return DEFAULT_FETCH_SIZE;
+	}
+
+	/**
+	 * Returns the offset from which {@link #getPage(Page, boolean)} will automatically perform a deferred join when
+	 * offset based paging is used. A deferred join will first select only the IDs of the entities within the range and
+	 * then select the entities by those IDs. This can be overridden per page with {@link Page.Builder#deferredJoin(boolean)}.
+	 * Regardless of the offset, a deferred join will also be performed when a limited page fetches a collection via
+	 * {@link #getPage(Page, boolean, String...)}, so that the range is applied on the entities instead of on the joined
+	 * rows, also when value based paging is used. Defaults to <code>1000</code>. You can override this to return a different value.
+	 * @return The offset from which a deferred join will automatically be performed when offset based paging is used.
+	 */
+	protected int getDeferredJoinOffsetThreshold() {
+		return DEFAULT_DEFERRED_JOIN_OFFSET_THRESHOLD;
+	}
+
+	/**
+	 * Returns whether {@link #getPage(Page, boolean)} should obtain the estimated total number of results in the same
+	 * statement as the page itself by selecting <code>COUNT(*) OVER()</code> next to the entity, instead of with a
+	 * separate count query. This saves a database round trip for every counted page. It is only applied when the
+	 * database supports window functions, see {@link Database#supportsWindowFunctions(EntityManager)}, with EclipseLink,
+	 * or with Hibernate when a SQL function named {@link Provider#HIBERNATE_WINDOWED_COUNT_FUNCTION} rendering
+	 * <code>COUNT(*) OVER()</code> is registered, e.g. via a <code>MetadataBuilderContributor</code> invoking
+	 * <code>applySqlFunction("count_over", new SQLFunctionTemplate(StandardBasicTypes.LONG, "COUNT(*) OVER()"))</code>.
+	 * It is further only applied when the entity itself is selected without <code>DISTINCT</code>, <code>GROUP BY</code>
+	 * or to-many joins, and when value based paging is not used. In all other cases, and when the page turns out to be
+	 * empty, the separate count query will be used. Defaults to <code>false</code>. You can override this to return
+	 * <code>true</code>.
+	 * @return Whether the estimated total number of results should be obtained in the same statement as the page.
+	 */
+	protected boolean isWindowedCountEnabled() {
+		return false;
+	}
+
+	/**
+	 * Returns the estimated total number of results from which {@link #getPage(Page, boolean)} will use the estimated
+	 * row count from the table statistics of the database instead of performing an exact count query. This is only
+	 * applied on H2, MySQL and PostgreSQL when the page has no criteria and the entity is mapped to a single table, see
+	 * {@link Provider#isSingleTable(Class)}, because the statistics cover the whole table. Counting a huge table is expensive while the exact total
+	 * is rarely relevant, but the statistics may be outdated, so a table whose estimated row count is below this
+	 * threshold will still be counted exactly. Defaults to {@link Integer#MAX_VALUE}, which means that an exact count is
+	 * always performed. You can override this to return a different value.
+	 * @return The estimated total number of results from which the table statistics are used instead of an exact count.
+	 */
+	protected int getExactCountThreshold() {
+		return MAX_VALUE;
+	}
+
+	/**
+	 * Returns whether {@link #getPage(Page, boolean)} should defer the count until
+	 * {@link PartialResultList#getEstimatedTotalNumberOfResults()} is invoked for the first time, instead of performing
+	 * it together with the page. The result of the count is remembered, so it is performed at most once. This saves a
+	 * count query for every counted page whose total is never read, such as a collapsed paginator. The count query and
+	 * the callbacks of {@link #beforePage()}, {@link #onPage(Class, boolean)} and {@link #afterPage()} are obtained
+	 * during the invocation of {@link #getPage(Page, boolean)}, so they must not rely on state of this service instance.
+	 * The count is then performed against the entity manager as returned by {@link #getEntityManager()}, which must
+	 * still be usable at the moment of access, else an {@link IllegalStateException} will be thrown. The count cache of
+	 * {@link #getCountCacheTimeToLive()} is used as well. Note that
+	 * {@link PagedResultList#hasNext()} is in this case only exact when {@link Page#isProbeNext()} is set. Defaults to
+	 * <code>false</code>. You can override this to return <code>true</code>.
+	 * @return Whether the count should be deferred until the estimated total number of results is read.
+	 */
+	protected boolean isLazyCountEnabled() {
+		return false;
+	}
+
+	/**
+	 * Returns the executor with which independent read queries should be executed in parallel, each on its own new
+	 * entity manager and thus on its own connection with the default isolation level of the data source. This is used
+	 * by {@link #getPage(Page, boolean)} to execute the count query in parallel with the entity query, and by
+	 * {@link #countForeignKeyReferencesTo(BaseEntity)} to execute the count of each referencing attribute in parallel,
+	 * so that the latency becomes the maximum of the queries instead of their sum. In Java EE you could return an
+	 * injected <code>&#64;Resource ManagedExecutorService</code>. Note that those queries run outside the current
+	 * transaction and therefore won't see its uncommitted changes. They are therefore only executed in parallel when the
+	 * current entity manager is not joined to a transaction, e.g. when the service method is invoked with
+	 * <code>&#64;TransactionAttribute(NOT_SUPPORTED)</code>, else they are executed sequentially, because a transaction
+	 * could already have written changes which the other connections cannot see. Note that <code>&#64;Stateless</code>
+	 * methods default to <code>REQUIRED</code>. Defaults to <code>null</code>, which means that all
+	 * queries are executed sequentially on the current entity manager. You can override this to return an executor.
+	 * @return The executor with which independent read queries should be executed in parallel.
+	 */
+	protected Executor getParallelQueryExecutor() {
+		return null;
+	}
+
+	/**
+	 * Returns the time in milliseconds during which {@link #getPage(Page, boolean)} may reuse the estimated total
+	 * number of results of a previous page of the same entity with the same required and optional criteria, instead of
+	 * performing the count query once again. The cached counts of an entity are invalidated when an entity thereof is
+	 * created or deleted, or when any of the soft delete, upsert, bulk delete and bulk update methods of this service is
+	 * invoked, in both cases once the transaction has successfully completed. Changes which are not made via this
+	 * service or the entity manager are only reflected after the time to live has expired. Pages built with a custom
+	 * query builder are never cached. Counts are neither reused nor cached when the entity manager is joined to a
+	 * transaction, because it may have flushed changes which are invisible to other transactions. As
+	 * <code>&#64;Stateless</code> methods default to <code>REQUIRED</code>, the count cache is thus only effective when
+	 * {@link #getPage(Page, boolean)} is invoked with e.g. <code>&#64;TransactionAttribute(NOT_SUPPORTED)</code>. The
+	 * callback returned by {@link #beforePage()} is part of the cache key, so it must return the same instance for the
+	 * same effect, else the count is never reused. Defaults to <code>0</code>, which means that the count is not cached.
+	 * You can override this to return a different value.
+	 * @return The time in milliseconds during which the estimated total number of results may be reused.
+	 */
+	protected long getCountCacheTimeToLive() {
+		return 0;
+	}
+
+	/**
+	 * Returns the time in milliseconds after expiry of {@link #getCountCacheTimeToLive()} during which the expired
+	 * count may still be reused while it is being refreshed in the background with {@link #getParallelQueryExecutor()}.
+	 * When there's no such executor, then the expired count is never reused. Defaults to <code>0</code>. You can
+	 * override this to return a different value.
+	 * @return The time in milliseconds during which an expired count may be reused while it is being refreshed.
+	 */
+	protected long getCountCacheStaleWhileRevalidate() {
+		return 0;
+	}
+
+	/**
+	 * Returns the maximum amount of page results which {@link #getPage(Page, boolean)} may cache per service, keyed by
+	 * the {@link Page}, the result type, the fetch fields and whether it's counted. This only applies to pages which are
+	 * cacheable and which are not built with a custom query builder. When the cache is full, the least recently used
+	 * page which was obtained only once is evicted first. The cached pages of an entity are invalidated when an entity
+	 * thereof is created, updated or deleted, or when any of the soft delete, upsert, bulk delete and bulk update methods
+	 * of this service is invoked, in both cases once the transaction has successfully completed. Changes of fetched
+	 * relationships and changes which are not made via this service or the entity manager do not invalidate the cached
+	 * pages, they are only reflected after {@link #getPageCacheTimeToLive()}. Pages are neither reused nor cached when
+	 * the entity manager is joined to a transaction, because it may have flushed changes which are invisible to other
+	 * transactions, so the page cache is only effective when {@link #getPage(Page, boolean)} is invoked with e.g.
+	 * <code>&#64;TransactionAttribute(NOT_SUPPORTED)</code>. The pages are cached as serialized snapshots, so a
+	 * cached page is always a copy whose entities are not managed by the current persistence context, and pages whose
+	 * results cannot be serialized are not cached. Defaults to <code>0</code>, which means that the pages are not
+	 * cached. You can override this to return a different value.
+	 * @return The maximum amount of page results which may be cached per service.
+	 */
+	protected int getPageCacheSize() {
+		return 0;
+	}
+
+	/**
+	 * Returns the time in milliseconds during which a page cached by {@link #getPageCacheSize()} may be reused.
+	 * Defaults to <code>60000</code>. You can override this to return a different value.
+	 * @return The time in milliseconds during which a cached page may be reused.
+	 */
+	protected long getPageCacheTimeToLive() {
+		return DEFAULT_PAGE_CACHE_TIME_TO_LIVE;
+	}
+
+	/**
+	 * Returns the maximum time in milliseconds during which concurrent invocations of {@link #getPage(Page, boolean)}
+	 * with an equal {@link Page}, or of {@link #getById(Comparable)} with an equal ID, wait for the database execution of
+	 * the first one instead of executing their own. This flattens a burst of identical queries, such as after expiry of
+	 * a cache. The first invocation serializes its result once, and the waiting invocations each receive a detached
+	 * copy thereof, so the entities thereof are not managed by their persistence context and uninitialized lazy
+	 * relationships cannot be loaded. When the wait times out, or when the first invocation fails, or when the result
+	 * cannot be serialized, then they execute their own query. Only invocations outside a transaction are coalesced, so
+	 * that uncommitted changes of one transaction never leak into another. Note that <code>&#64;Stateless</code>
+	 * methods default to <code>REQUIRED</code>, so nothing is coalesced unless the caller invokes the service method
+	 * with e.g. <code>&#64;TransactionAttribute(NOT_SUPPORTED)</code> or <code>SUPPORTS</code> without an active
+	 * transaction. A coalesced {@link #getById(Comparable)} always returns a
+	 * detached entity, also to the first invocation. Pages built with a custom query builder are never coalesced.
+	 * Defaults to <code>0</code>, which means that nothing is coalesced. You can override this to return a different
+	 * value.
+	 * @return The maximum time in milliseconds to wait for the result of an identical invocation which is in progress.
+	 */
+	protected long getSingleFlightTimeout() {
+		return 0;
+	}
+
+	/**
+	 * Returns the maximum amount of entities which {@link #getById(Comparable)} and {@link #findById(Comparable)} may
+	 * cache per entity type, independently from the second level cache of the JPA provider. Only invocations outside a
+	 * transaction use the cache, so that a transaction always sees its own changes and never caches uncommitted ones.
+	 * As <code>&#64;Stateless</code> methods default to <code>REQUIRED</code>, the cache is thus inert unless the
+	 * caller invokes the service method with e.g. <code>&#64;TransactionAttribute(NOT_SUPPORTED)</code>, or with
+	 * <code>SUPPORTS</code> without an active transaction, for example on a read only service method which merely
+	 * looks up an entity for display.
+	 * The entities are cached as serialized snapshots, so every invocation outside a transaction returns a detached
+	 * copy, also on a miss, whose uninitialized lazy relationships cannot be loaded. Entities which cannot be serialized
+	 * are not cached. The cached entity is invalidated when it's created, updated or deleted and the transaction has
+	 * successfully completed, and all cached entities of the entity type are invalidated when any of the soft delete,
+	 * upsert, bulk delete and bulk update methods of this service is invoked and the transaction has successfully
+	 * completed. Changes which are not made via this service or the entity manager are only reflected after
+	 * {@link #getNearCacheTimeToLive()}. When the cache is full, the least recently used entity is evicted. Defaults to
+	 * <code>0</code>, which means that the entities are not cached. You can override this to return a different value.
+	 * @return The maximum amount of entities which may be cached per entity type.
+	 */
+	protected int getNearCacheSize() {
+		return 0;
+	}
+
+	/**
+	 * Returns the time in milliseconds during which {@link #getById(Comparable)} and {@link #findById(Comparable)} may
+	 * remember that there is no entity with the given ID, when {@link #getNearCacheSize()} is enabled. Defaults to
+	 * <code>1000</code>. You can override this to return a different value, or <code>0</code> to not remember it.
+	 * @return The time in milliseconds during which an absent entity may be remembered.
+	 */
+	protected long getNearCacheNegativeTimeToLive() {
+		return DEFAULT_NEAR_CACHE_NEGATIVE_TIME_TO_LIVE;
+	}
+
+	/**
+	 * Returns the time in milliseconds during which an entity cached by {@link #getNearCacheSize()} may be reused.
+	 * Defaults to <code>60000</code>. You can override this to return a different value.
+	 * @return The time in milliseconds during which a cached entity may be reused.
+	 */
+	protected long getNearCacheTimeToLive() {
+		return DEFAULT_NEAR_CACHE_TIME_TO_LIVE;
+	}
+
 	/**
 	 * Returns the entity manager being used. When you have only one persistence unit, then you don't need to override
 	 * this. When you have multiple persistence units, then you need to extend the {@link BaseEntityService} like below
@@ -675,7 +1105,7 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	 * @return Found entity, if any.
 	 */
 	public Optional<E> findById(I id) {
-		return Optional.ofNullable(getById(id, false));
+		return Optional.ofNullable(getById(id));
 	}
 
 	/**
@@ -699,12 +1129,48 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	}
 
 	/**
-	 * Get entity by the given ID. This does not include soft deleted one.
+	 * Get entity by the given ID. This does not include soft deleted one. When {@link #getNearCacheSize()} or
+	 * {@link #getSingleFlightTimeout()} is enabled and there's no transaction, then this returns a detached entity.
 	 * @param id Entity ID to get entity by.
 	 * @return Found entity, or <code>null</code> if there is none.
 	 */
 	public E getById(I id) {
-		return getById(id, false);
+		int nearCacheSize = getNearCacheSize();
+
+		if (nearCacheSize <= 0 || getEntityManager().isJoinedToTransaction()) {
+			return getCoalescedById(id, false);
+		}
+
+		// The soft deleted ones are cached as well, so that the soft delete state is checked on every hit.
+		E entity = NearCache.of(entityType, nearCacheSize).get(id, getNearCacheTimeToLive(), getNearCacheNegativeTimeToLive(), () -> getCoalescedById(id, true));
+		return (entity != null && softDeleteData.isSoftDeleted(entity)) ? null : entity;
+	}
+
+	private E getCoalescedById(I id, boolean includeSoftDeleted) {
+		long singleFlightTimeout = getSingleFlightTimeout();
+
+		if (singleFlightTimeout <= 0 || !canCoalesce()) {
+			return getById(id, includeSoftDeleted);
+		}
+
+		return SingleFlight.execute(asList(getClass(), entityType, id, includeSoftDeleted), singleFlightTimeout, () -> {
+			E entity = getById(id, includeSoftDeleted);
+
+			if (entity != null && getEntityManager().contains(entity)) {
+				getEntityManager().detach(entity); // So that the first invocation gets a detached entity as well.
+			}
+
+			return entity;
+		});
+	}
+
+	/**
+	 * Returns whether concurrent identical invocations may be coalesced as per {@link #getSingleFlightTimeout()}. This
+	 * is only the case when the current entity manager is not joined to a transaction, because the result of the first
+	 * invocation could otherwise reflect uncommitted changes of its transaction to the other invocations.
+	 */
+	private boolean canCoalesce() {
+		return !getEntityManager().isJoinedToTransaction();
 	}
 
 	/**
@@ -756,6 +1222,55 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		return entity;
 	}
 
+	/**
+	 * Returns a lazy handle to the entity of the given ID. This does not include soft deleted one. The IDs of all handles
+	 * which are obtained from a service of the same class and persistence unit in the current thread are collected until
+	 * the entity of any of them is actually obtained via {@link Supplier#get()}, whereupon the entities of all of them are
+	 * obtained at once. This turns a series of lookups by ID, such as one per row of a table, into a single query. Any
+	 * subsequently obtained handle starts collecting anew. The handles never refer this service instance, because it
+	 * may already serve another caller by the time they are resolved. When this service is an EJB whose business object
+	 * is an instance of this service class, then the entities are obtained via {@link #getByIds(Iterable)} of that
+	 * business object, so that it passes through the container. Otherwise they are obtained directly via the entity
+	 * manager as returned by {@link #getEntityManager()} when the batch was started, which must then still be usable at
+	 * the moment of resolving.
+	 * <p>
+	 * Usage example:
+	 * <pre>
+	 * List&lt;Supplier&lt;Foo&gt;&gt; foos = bars.stream().map(bar -&gt; fooService.load(bar.getFooId())).collect(toList());
+	 * Foo foo = foos.get(0).get(); // Gets all foos at once.
+	 * </pre>
+	 * @param id Entity ID to obtain a lazy handle for.
+	 * @return A lazy handle to the entity, which returns <code>null</code> if there is none.
+	 */
+	public Supplier<E> load(I id) {
+		return BatchLoader.load(asList(getClass(), getEntityManager().getEntityManagerFactory()), id, this::buildBatchLoader);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Function<Set<I>, List<E>> buildBatchLoader() {
+		BaseEntityService<?, ?> businessObject;
+
+		try {
+			businessObject = getCurrentInstance();
+		}
+		catch (IllegalStateException ignore) {
+			businessObject = null; // Not invoked as EJB.
+		}
+
+		if (getClass().isInstance(businessObject)) {
+			return ((BaseEntityService<I, E>) businessObject)::getByIds;
+		}
+
+		EntityManager entityManager = getEntityManager();
+		Provider provider = getProvider();
+		Class<E> entityType = this.entityType;
+		SoftDeleteData softDeleteData = this.softDeleteData;
+		int maxInClauseSize = getMaxInClauseSize();
+		return ids -> provider.multiLoad(entityManager, entityType, new ArrayList<>(ids), maxInClauseSize).stream()
+			.filter(entity -> entity != null && softDeleteData.matchesWhereClause(provider.dereferenceProxy(entity), false))
+			.collect(toList());
+	}
+
 	/**
 	 * Get entities by the given IDs. The default ordering is by ID, descending. This does not include soft deleted ones.
 	 * @param ids Entity IDs to get entities by.
@@ -767,33 +1282,120 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 
 	/**
 	 * Get entities by the given IDs and set whether it may include soft deleted ones. The default ordering is by ID, descending.
+	 * <p>
+	 * The IDs are queried in chunks of at most {@link #getMaxInClauseSize()}, whereafter the results are merged back
+	 * into the default ordering. In Hibernate, this uses its multi load API, which returns entities already managed by
+	 * the current persistence context without hitting the database.
 	 * @param ids Entity IDs to get entities by.
 	 * @param includeSoftDeleted Whether to include soft deleted ones in the search.
 	 * @return Found entities, optionally including soft deleted ones, or an empty set if there is none.
 	 * @throws NonSoftDeletableEntityException When entity doesn't have {@link SoftDeletable} annotation set on any of its fields.
 	 */
 	protected List<E> getByIds(Iterable<I> ids, boolean includeSoftDeleted) {
-		if (!ids.iterator().hasNext()) {
+		List<I> distinctIds = stream(ids).distinct().collect(toList());
+
+		if (distinctIds.isEmpty()) {
 			return emptyList();
 		}
 
-		String whereClause = softDeleteData.getWhereClause(includeSoftDeleted);
-		return list(select("")
-			+ whereClause + (whereClause.isEmpty() ? " WHERE" : " AND") + " e.id IN (:ids)"
-			+ " ORDER BY e.id DESC", p -> p.put("ids", ids));
+		List<E> entities;
+
+		if (getProvider() == HIBERNATE) {
+			entities = getProvider().multiLoad(getEntityManager(), entityType, distinctIds, getMaxInClauseSize()).stream()
+				.filter(entity -> entity != null && softDeleteData.matchesWhereClause(getProvider().dereferenceProxy(entity), includeSoftDeleted))
+				.collect(toList());
+		}
+		else {
+			String whereClause = softDeleteData.getWhereClause(includeSoftDeleted);
+			entities = listInChunks(distinctIds, chunk -> list(select("")
+				+ whereClause + (whereClause.isEmpty() ? " WHERE " : " AND ") + idsRestriction, p -> p.put("ids", chunk)));
+		}
+
+		entities.sort((left, right) -> right.getId().compareTo(left.getId()));
+		return entities;
 	}
 
 	/**
-	 * Check whether given entity exists.
+	 * Check whether given entity exists. This is used by {@link #persist(BaseEntity)}, {@link #update(BaseEntity)} and
+	 * {@link #save(BaseEntity)} in order to determine the state of an entity having a non-generated ID. In order to
+	 * avoid a database round trip whenever possible, the checks are performed in the following order:
+	 * <ol>
+	 * <li>When the entity has no ID, then it does not exist.
+	 * <li>When the entity is managed by the current persistence context, then it exists.
+	 * <li>When the entity is {@link Versioned} and has a version, then it exists, as it must have been obtained from
+	 * the database. Should it have been deleted in the meanwhile, then the subsequent merge will fail on the version check.
+	 * <li>Else it will delegate to {@link #existsById(Comparable)}.
+	 * </ol>
+	 * You can override this method in order to plug in a different strategy.
 	 * This method supports proxied entities.
 	 * @param entity Entity to check.
 	 * @return Whether entity with given entity exists.
 	 */
 	protected boolean exists(E entity) {
 		I id = getProvider().getIdentifier(entity);
-		return id != null && createLongQuery("SELECT COUNT(e) FROM " + entityType.getSimpleName() + " e WHERE e.id = :id")
+
+		if (id == null) {
+			return false;
+		}
+
+		if (!getProvider().isProxy(entity)) {
+			if (isManaged(entity)) {
+				return true;
+			}
+
+			if (entity instanceof Versioned && ((Versioned) entity).getVersion() != null) {
+				return true;
+			}
+		}
+
+		return existsById(id);
+	}
+
+	/**
+	 * Check whether an entity with given ID exists in the database. This does not count the rows but selects at most
+	 * one ID. This includes soft deleted ones.
+	 * @param id Entity ID to check.
+	 * @return Whether an entity with given ID exists in the database.
+	 */
+	protected boolean existsById(I id) {
+		return id != null && !getEntityManager().createQuery("SELECT e.id FROM " + entityType.getSimpleName() + " e WHERE e.id = :id", identifierType)
 			.setParameter("id", id)
-			.getSingleResult().intValue() > 0;
+			.setMaxResults(1)
+			.getResultList().isEmpty();
+	}
+
+	/**
+	 * Returns the IDs of the entities which exist in the database, obtained with a single query per chunk of
+	 * {@link #getMaxInClauseSize()} IDs. This includes soft deleted ones.
+	 * @param ids Entity IDs to check.
+	 * @return The subset of given entity IDs which exist in the database, or an empty set if there is none.
+	 */
+	protected Set<I> getExistingIds(Iterable<I> ids) {
+		List<I> distinctIds = stream(ids).filter(Objects::nonNull).distinct().collect(toList());
+		return new HashSet<>(listInChunks(distinctIds, chunk -> getEntityManager().createQuery("SELECT e.id FROM " + entityType.getSimpleName() + " e WHERE " + idsRestriction, identifierType)
+			.setParameter("ids", chunk)
+			.getResultList()));
+	}
+
+	/**
+	 * Invokes given query for each chunk of given IDs and returns the combined results. The chunk is supplied as value
+	 * for the <code>:ids</code> parameter of {@link #idsRestriction}, which is either an array of all IDs at once, or
+	 * a list of at most {@link #getMaxInClauseSize()} IDs padded to the next power of two.
+	 */
+	private <T> List<T> listInChunks(List<I> ids, Function<Object, List<T>> query) {
+		int chunkSize = arrayBindable ? ids.size() : getMaxInClauseSize();
+		List<T> results = new ArrayList<>();
+
+		for (int i = 0; i < ids.size(); i += chunkSize) {
+			results.addAll(query.apply(buildIdsParameter(ids.subList(i, Math.min(i + chunkSize, ids.size())))));
+		}
+
+		return results;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object buildIdsParameter(List<I> ids) {
+		return arrayBindable ? ids.toArray((I[]) Array.newInstance(identifierType, ids.size())) : padInClause(ids, getMaxInClauseSize());
 	}
 
 	/**
@@ -954,28 +1556,93 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	 * @throws IllegalEntityStateException When entity is already persisted or its ID is not generated.
 	 */
 	public I persist(E entity) {
+		checkPersistable(entity, this::exists);
+		persistOrLogConstraintViolations(entity);
+
+		// Entity is not guaranteed to have been given an ID before either the TX commits or flush is called.
+		getEntityManager().flush();
+
+		return entity.getId();
+	}
+
+	/**
+	 * Persist given entities in batches of {@link #getBatchSize()}. After every batch the persistence context will be
+	 * flushed and cleared, so that the JPA provider can send the inserts in JDBC batches and the persistence context
+	 * doesn't grow with the amount of given entities. The last batch will only be flushed, not cleared.
+	 * Any bean validation constraint violation will be logged separately.
+	 * <p>
+	 * Note that the JPA provider will only actually perform JDBC batching when configured so in
+	 * <code>persistence.xml</code>, e.g. via <code>hibernate.jdbc.batch_size</code> in Hibernate or via
+	 * <code>eclipselink.jdbc.batch-writing</code> in EclipseLink. Also note that clearing the persistence context will
+	 * detach all entities which were managed so far in the current transaction, not only the given ones.
+	 * @param entities Entities to persist.
+	 * @return Entity IDs, in the same order as the given entities.
+	 * @throws IllegalEntityStateException When at least one entity is already persisted or its ID is not generated, or
+	 * when at least two entities have the same ID.
+	 */
+	public List<I> persist(Iterable<E> entities) {
+		int batchSize = getBatchSize();
+		List<E> batch = new ArrayList<>(batchSize);
+		List<I> ids = new ArrayList<>();
+		Set<I> givenIds = new HashSet<>();
+
+		for (E entity : entities) {
+			if (entity.getId() != null && !givenIds.add(entity.getId())) {
+				throw new IllegalEntityStateException(entity, "Entity ID is given more than once. You need to manually deduplicate it.");
+			}
+
+			batch.add(entity);
+
+			if (batch.size() >= batchSize) {
+				persistBatch(batch, ids);
+				getEntityManager().clear();
+			}
+		}
+
+		if (!batch.isEmpty()) {
+			persistBatch(batch, ids);
+		}
+
+		return ids;
+	}
+
+	private void checkPersistable(E entity, Function<E, Boolean> exists) {
 		if (entity.getId() != null) {
-			if (generatedId || exists(entity)) {
+			if (generatedId || exists.apply(entity)) {
 				throw new IllegalEntityStateException(entity, "Entity is already persisted. Use update() instead.");
 			}
 		}
 		else if (!generatedId) {
 			throw new IllegalEntityStateException(entity, "Entity has no generated ID. You need to manually set it.");
 		}
+	}
 
+	private void persistOrLogConstraintViolations(E entity) {
 		try {
 			getEntityManager().persist(entity);
-
 		}
 		catch (ConstraintViolationException e) {
 			logConstraintViolations(e.getConstraintViolations());
 			throw e;
 		}
+	}
 
-		// Entity is not guaranteed to have been given an ID before either the TX commits or flush is called.
-		getEntityManager().flush();
+	private void persistBatch(List<E> batch, List<I> ids) {
+		Set<I> existingIds = generatedId ? emptySet() : getExistingIds(batch.stream().map(BaseEntity::getId).collect(toList()));
+		batch.forEach(entity -> checkPersistable(entity, e -> existingIds.contains(e.getId())));
+		batch.forEach(this::persistOrLogConstraintViolations);
 
-		return entity.getId();
+		try {
+			getEntityManager().flush();
+		}
+		catch (ConstraintViolationException e) {
+			logConstraintViolations(e.getConstraintViolations());
+			throw e;
+		}
+
+		// Entities are not guaranteed to have been given an ID before either the TX commits or flush is called.
+		batch.forEach(entity -> ids.add(entity.getId()));
+		batch.clear();
 	}
 
 
@@ -992,6 +1659,11 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	 * @throws IllegalEntityStateException When entity is not persisted or its ID is not generated.
 	 */
 	public E update(E entity) {
+		checkUpdatable(entity, this::exists);
+		return validateAndMerge(entity);
+	}
+
+	private void checkUpdatable(E entity, Function<E, Boolean> exists) {
 		if (entity.getId() == null) {
 			if (generatedId) {
 				throw new IllegalEntityStateException(entity, "Entity is not persisted. Use persist() instead.");
@@ -1001,10 +1673,12 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 			}
 		}
 
-		if (!exists(entity)) {
+		if (!exists.apply(entity)) {
 			throw new IllegalEntityStateException(entity, "Entity is not persisted. Use persist() instead.");
 		}
+	}
 
+	private E validateAndMerge(E entity) {
 		if (validator != null) {
 			// EntityManager#merge() doesn't directly throw ConstraintViolationException without performing flush, so we can't put it in a
 			// try-catch, and we can't even use an @Interceptor as it happens in JTA side not in EJB side. Hence, we're manually performing
@@ -1041,13 +1715,48 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	}
 
 	/**
-	 * Update given entities.
+	 * Update given entities in batches of {@link #getBatchSize()}. Per batch, the current database state of all entities
+	 * is loaded into the persistence context with a single query, which at once verifies that they all exist, so that
+	 * the subsequent merges don't need to hit the database anymore. After every batch the persistence context will be
+	 * flushed and cleared, so that the JPA provider can send the updates in JDBC batches. The last batch will neither
+	 * be flushed nor cleared. Any bean validation constraint violation will be logged the same way as in
+	 * {@link #update(BaseEntity)}.
+	 * <p>
+	 * Note that clearing the persistence context will detach all entities which were managed so far in the current
+	 * transaction, including the updated entities returned from previous batches.
 	 * @param entities Entities to update.
-	 * @return Updated entities.
-	 * @throws IllegalEntityStateException When at least one entity has no ID.
+	 * @return Updated entities, in the same order as the given entities.
+	 * @throws IllegalEntityStateException When at least one entity has no ID or is not persisted.
 	 */
 	public List<E> update(Iterable<E> entities) {
-		return stream(entities).map(this::update).collect(toList());
+		int batchSize = getBatchSize();
+		List<E> batch = new ArrayList<>(batchSize);
+		List<E> updatedEntities = new ArrayList<>();
+
+		for (E entity : entities) {
+			batch.add(entity);
+
+			if (batch.size() >= batchSize) {
+				updateBatch(batch, updatedEntities);
+				getEntityManager().flush();
+				getEntityManager().clear();
+			}
+		}
+
+		if (!batch.isEmpty()) {
+			updateBatch(batch, updatedEntities);
+		}
+
+		return updatedEntities;
+	}
+
+	private void updateBatch(List<E> batch, List<E> updatedEntities) {
+		Set<I> ids = batch.stream().map(BaseEntity::getId).filter(Objects::nonNull).collect(toSet());
+		Set<I> existingIds = listByIds(ids).stream().map(BaseEntity::getId).collect(toSet());
+
+		batch.forEach(entity -> checkUpdatable(entity, e -> existingIds.contains(e.getId())));
+		batch.forEach(entity -> updatedEntities.add(validateAndMerge(entity)));
+		batch.clear();
 	}
 
 	/**
@@ -1068,6 +1777,7 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	 * @see Query#executeUpdate()
 	 */
 	protected int update(String jpql, Object... parameters) {
+		invalidateCaches();
 		return createQuery(update(jpql), parameters).executeUpdate();
 	}
 
@@ -1095,6 +1805,7 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	 * @see Query#executeUpdate()
 	 */
 	protected int update(String jpql, Consumer<Map<String, Object>> parameters) {
+		invalidateCaches();
 		return createQuery(update(jpql), parameters).executeUpdate();
 	}
 
@@ -1128,6 +1839,104 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		return savedEntity;
 	}
 
+	/**
+	 * Upsert given entity via {@link #upsert(Iterable)}.
+	 * @param entity Entity to upsert.
+	 */
+	public void upsert(E entity) {
+		upsert(singletonList(entity));
+	}
+
+	/**
+	 * Upsert given entities. This will insert the entities which do not exist in the data store yet and update the
+	 * others with a single native SQL statement per batch of {@link #getBatchSize()} entities, without checking their
+	 * existence beforehand. This uses <code>INSERT ... ON CONFLICT DO UPDATE</code> on {@link Database#POSTGRESQL},
+	 * <code>INSERT ... ON DUPLICATE KEY UPDATE</code> on {@link Database#MYSQL} and <code>MERGE INTO</code> on
+	 * {@link Database#H2}.
+	 * <p>
+	 * This is only possible when the entity is mapped to a single table via basic attributes only, without a version
+	 * and without attribute converters, and when it has an ID. The table name is obtained via
+	 * {@link Provider#getTableName(BaseEntity)} and the column names via {@link Provider#getColumnName(EntityManagerFactory, Class, String)},
+	 * which is currently only supported on {@link Provider#HIBERNATE} and {@link Provider#ECLIPSELINK}. In all other
+	 * cases, and on any other database, this will fall back to {@link #save(BaseEntity)} for each entity. The
+	 * <code>created</code> timestamp and the columns which are not updatable will not be updated.
+	 * <p>
+	 * As this bypasses the JPA provider, no JPA lifecycle callbacks will be invoked and therefore no {@link Created} or
+	 * {@link Updated} events will be fired. Only the timestamps of entities extending from {@link TimestampedEntity} or
+	 * {@link TimestampedBaseEntity} will be adjusted beforehand. For the same reason, the bean validation is performed
+	 * beforehand, unless <code>javax.persistence.validation.mode</code> property in <code>persistence.xml</code> is set
+	 * to <code>NONE</code>, and nothing will be written when any entity has a constraint violation. Any given entity
+	 * which was managed will be detached afterwards, and all of them will be evicted from the second level cache.
+	 * @param entities Entities to upsert.
+	 * @throws ConstraintViolationException When at least one entity has a bean validation constraint violation.
+	 */
+	public void upsert(Iterable<E> entities) {
+		Map<I, E> upsertableEntities = new LinkedHashMap<>();
+
+		for (E entity : entities) {
+			I id = getProvider().getIdentifier(entity);
+
+			if (id != null && upsertData.isUpsertable() && getDatabase() != Database.UNKNOWN) {
+				upsertableEntities.remove(id); // Same row may not be affected twice by the same statement, so last one wins.
+				upsertableEntities.put(id, entity);
+			}
+			else {
+				save(entity);
+			}
+		}
+
+		upsertableEntities.values().forEach(this::validateOrThrowConstraintViolations);
+		upsertableEntities.values().stream().collect(forEachBatch(batch -> {
+			List<Object> parameters = new ArrayList<>();
+			List<List<String>> rows = batch.stream().map(entity -> upsertData.collectValues(getProvider().dereferenceProxy(entity), parameters)).collect(toList());
+			Query query = getEntityManager().createNativeQuery(getDatabase().buildUpsertStatement(getProvider().getTableName(batch.get(0)),
+				upsertData.getIdColumnName(), upsertData.getColumnNames(), upsertData.getUpdateColumnNames(), rows));
+			range(0, parameters.size()).forEach(i -> query.setParameter(i + 1, parameters.get(i)));
+			query.executeUpdate();
+		}, getBatchSize()));
+
+		invalidateCaches();
+		Cache cache = getEntityManager().getEntityManagerFactory().getCache();
+		upsertableEntities.forEach((id, entity) -> {
+			if (isManaged(entity)) {
+				getEntityManager().detach(entity);
+			}
+
+			cache.evict(entityType, id);
+		});
+	}
+
+
+	private void validateOrThrowConstraintViolations(E entity) {
+		getOptionalValidator().ifPresent(validator -> {
+			Set<ConstraintViolation<E>> constraintViolations = validator.validate(getProvider().dereferenceProxy(entity));
+
+			if (!constraintViolations.isEmpty()) {
+				logConstraintViolations(constraintViolations);
+				throw new ConstraintViolationException(constraintViolations);
+			}
+		});
+	}
+
+	private Optional<Validator> getOptionalValidator() {
+		if (optionalValidator == null) {
+			if (validator != null || getValidationMode(getEntityManager()) == ValidationMode.NONE) {
+				optionalValidator = Optional.ofNullable(validator);
+			}
+			else {
+				try {
+					Instance<Validator> instance = CDI.current().select(Validator.class);
+					optionalValidator = instance.isUnsatisfied() ? Optional.empty() : Optional.of(instance.get());
+				}
+				catch (IllegalStateException ignore) {
+					optionalValidator = Optional.empty(); // Can happen when actually not in CDI environment, e.g. local unit test.
+				}
+			}
+		}
+
+		return optionalValidator;
+	}
+
 
 	// Delete actions -------------------------------------------------------------------------------------------------
 
@@ -1143,7 +1952,11 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 			throw new NonDeletableEntityException(entity);
 		}
 
-		getEntityManager().remove(manage(entity));
+		remove(manage(entity), entity);
+	}
+
+	private void remove(E managedEntity, E entity) {
+		getEntityManager().remove(managedEntity);
 
 		if (getProvider() != ECLIPSELINK || !getEntityManager().contains(entity)) {
 			entity.setId(null);
@@ -1160,6 +1973,7 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	public void softDelete(E entity) {
 		softDeleteData.checkSoftDeletable();
 		softDeleteData.setSoftDeleted(manage(entity), true);
+		invalidateCaches();
 	}
 
 	/**
@@ -1172,44 +1986,254 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	public void softUndelete(E entity) {
 		softDeleteData.checkSoftDeletable();
 		softDeleteData.setSoftDeleted(manage(entity), false);
+		invalidateCaches();
 	}
 
 	/**
-	 * Delete given entities.
+	 * Delete given entities. When the entity has no cascade remove or orphan removal relationships, no element
+	 * collections, no many-to-many relationships, no one-to-many relationships without <code>mappedBy</code> and no
+	 * remove lifecycle callbacks other than those of {@link BaseEntityListener}, then they will be deleted with bulk
+	 * <code>DELETE</code> statements of at most {@link #getMaxInClauseSize()} IDs each. The entities with the given IDs
+	 * will then be detached from the persistence context and evicted from the second level cache, and the
+	 * {@link Deleted} event will be fired for each of the given entities. Otherwise
+	 * they will in batches of {@link #getBatchSize()} be managed with a single query per batch and then be removed one
+	 * by one. In both cases the ID of the given entities will be set to <code>null</code>, like as in
+	 * {@link #delete(BaseEntity)}.
 	 * @param entities Entities to delete.
 	 * @throws NonDeletableEntityException When at least one entity has {@link NonDeletable} annotation set.
 	 * @throws IllegalEntityStateException When at least one entity has no ID.
 	 * @throws EntityNotFoundException When at least one entity has in meanwhile been deleted.
 	 */
 	public void delete(Iterable<E> entities) {
-		entities.forEach(this::delete);
-	}
+		List<E> entitiesToDelete = stream(entities).collect(toList());
 
-	/**
-	 * Soft delete given entities.
-	 * @param entities Entities to soft delete.
-	 * @throws NonSoftDeletableEntityException When entity doesn't have {@link SoftDeletable} annotation set on any of its fields.
-	 * @throws IllegalEntityStateException When at least one entity has no ID.
-	 * @throws EntityNotFoundException When at least one entity has in meanwhile been hard deleted.
-	 */
+		for (E entity : entitiesToDelete) {
+			if (entity.getClass().isAnnotationPresent(NonDeletable.class)) {
+				throw new NonDeletableEntityException(entity);
+			}
+
+			if (getProvider().getIdentifier(entity) == null) {
+				throw new IllegalEntityStateException(entity, "Entity has no ID.");
+			}
+		}
+
+		if (bulkDeletable) {
+			deleteInBulk(entitiesToDelete.stream().map(entity -> getProvider().getIdentifier(entity)).collect(toList()));
+			entitiesToDelete.forEach(entity -> {
+				if (isManaged(entity)) {
+					getEntityManager().detach(entity);
+				}
+
+				entityListener.onPostRemove(entity);
+				entity.setId(null);
+			});
+		}
+		else {
+			entitiesToDelete.stream().collect(forEachBatch(batch -> {
+				Map<I, E> managedEntities = listByIds(batch.stream().filter(entity -> !isManaged(entity)).map(entity -> getProvider().getIdentifier(entity)).collect(toSet()))
+					.stream().collect(toMap(BaseEntity::getId, identity()));
+
+				for (E entity : batch) {
+					E managedEntity = isManaged(entity) ? entity : managedEntities.get(getProvider().getIdentifier(entity));
+
+					if (managedEntity == null) {
+						throw new EntityNotFoundException("Entity has in meanwhile been deleted.");
+					}
+
+					remove(managedEntity, entity);
+				}
+
+				getEntityManager().flush();
+			}, getBatchSize()));
+		}
+	}
+
+	/**
+	 * Delete entities by given IDs. This follows the same strategy as {@link #delete(Iterable)}, with the difference
+	 * that in case of bulk <code>DELETE</code> statements no entities will be loaded at all, and that therefore no
+	 * {@link Deleted} event will be fired. This includes soft deleted ones.
+	 * @param ids Entity IDs to delete entities by.
+	 * @throws NonDeletableEntityException When entity has {@link NonDeletable} annotation set.
+	 * @throws EntityNotFoundException When at least one entity has in meanwhile been deleted.
+	 */
+	public void deleteByIds(Iterable<I> ids) {
+		if (entityType.isAnnotationPresent(NonDeletable.class)) {
+			throw new NonDeletableEntityException(null, format(ERROR_NON_DELETABLE_IDS, entityType.getSimpleName(), summarize(stream(ids).collect(toList()))));
+		}
+
+		if (bulkDeletable) {
+			deleteInBulk(stream(ids).collect(toList()));
+		}
+		else {
+			stream(ids).distinct().collect(forEachBatch(batch -> {
+				List<E> managedEntities = listByIds(batch);
+
+				if (managedEntities.size() < batch.size()) {
+					throw new EntityNotFoundException("Entity has in meanwhile been deleted.");
+				}
+
+				managedEntities.forEach(entity -> getEntityManager().remove(entity));
+				getEntityManager().flush();
+			}, getBatchSize()));
+		}
+	}
+
+	private void deleteInBulk(List<I> ids) {
+		executeInBulk("DELETE FROM " + entityType.getSimpleName() + " e WHERE " + idsRestriction, ids, emptyMap());
+		detachByIds(ids);
+	}
+
+	/**
+	 * Detach the entities of given IDs from the current persistence context, so that it doesn't hold on to entities
+	 * which are changed by bulk statements. This is a no-op when the JPA provider cannot tell the managed entities.
+	 */
+	private void detachByIds(List<I> ids) {
+		Collection<Object> managedEntities = getProvider().getManagedEntities(getEntityManager());
+
+		if (managedEntities != null) {
+			Set<I> distinctIds = new HashSet<>(ids);
+			managedEntities.stream().filter(entityType::isInstance).map(entityType::cast)
+				.filter(entity -> distinctIds.contains(getProvider().getIdentifier(entity))).forEach(getEntityManager()::detach);
+		}
+	}
+
+	private static String summarize(List<?> ids) {
+		return (ids.size() <= MAX_IDS_IN_MESSAGE) ? ids.toString() : format("%s and %d more", ids.subList(0, MAX_IDS_IN_MESSAGE), ids.size() - MAX_IDS_IN_MESSAGE);
+	}
+
+	private void executeInBulk(String jpql, List<I> ids, Map<String, Object> parameters) {
+		List<I> distinctIds = ids.stream().distinct().collect(toList());
+		int affectedRows = listInChunks(distinctIds, chunk -> {
+			Query query = createQuery(jpql).setParameter("ids", chunk);
+			parameters.forEach(query::setParameter);
+			return singletonList(query.executeUpdate());
+		}).stream().mapToInt(Integer::intValue).sum();
+
+		invalidateCaches();
+
+		if (affectedRows < distinctIds.size()) {
+			throw new EntityNotFoundException("Entity has in meanwhile been deleted.");
+		}
+
+		Cache cache = getEntityManager().getEntityManagerFactory().getCache();
+		distinctIds.forEach(id -> cache.evict(entityType, id));
+	}
+
+	/**
+	 * Invalidate the cached counts, pages and entities of the current entity once the current transaction, if any, has
+	 * successfully completed, so that no concurrent reader can cache the state before the commit in the meanwhile. This
+	 * must be invoked on every change which doesn't trigger the entity lifecycle callbacks of {@link BaseEntityListener}.
+	 */
+	private void invalidateCaches() {
+		Class<E> entityType = this.entityType;
+		Runnable invalidate = () -> {
+			CountCache.invalidate(entityType);
+			PageCache.invalidate(entityType);
+			NearCache.invalidate(entityType);
+		};
+
+		if (transactionSynchronizationRegistry == null || transactionSynchronizationRegistry.getTransactionStatus() != STATUS_ACTIVE) {
+			invalidate.run();
+			return;
+		}
+
+		transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+
+			@Override
+			public void beforeCompletion() {
+				// NOOP.
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				if (status == STATUS_COMMITTED) {
+					invalidate.run();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Soft delete given entities. This is performed with bulk <code>UPDATE</code> statements of at most
+	 * {@link #getMaxInClauseSize()} IDs each, so without loading the entities. When the entity implements
+	 * {@link Timestamped}, then the last modified timestamp will be adjusted as well, and when it implements
+	 * {@link Versioned} and has a {@link Version} field, then the version will be incremented as well. The entities with
+	 * the given IDs will then be detached from the persistence context and evicted from the second level cache, and the
+	 * soft deletable field and any last modified timestamp and version of the given entities will be adjusted
+	 * accordingly, so that they can be updated any further, and the {@link Updated} event will be fired for each of them.
+	 * @param entities Entities to soft delete.
+	 * @throws NonSoftDeletableEntityException When entity doesn't have {@link SoftDeletable} annotation set on any of its fields.
+	 * @throws IllegalEntityStateException When at least one entity has no ID.
+	 * @throws EntityNotFoundException When at least one entity has in meanwhile been hard deleted.
+	 */
 	public void softDelete(Iterable<E> entities) {
-		entities.forEach(this::softDelete);
+		setSoftDeletedInBulk(entities, true);
 	}
 
 	/**
-	 * Soft undelete given entities.
+	 * Soft undelete given entities. This is performed with bulk <code>UPDATE</code> statements of at most
+	 * {@link #getMaxInClauseSize()} IDs each, so without loading the entities. See {@link #softDelete(Iterable)} for
+	 * details.
 	 * @param entities Entities to soft undelete.
 	 * @throws NonSoftDeletableEntityException When entity doesn't have {@link SoftDeletable} annotation set on any of its fields.
 	 * @throws IllegalEntityStateException When at least one entity has no ID.
 	 * @throws EntityNotFoundException When at least one entity has in meanwhile been hard deleted.
 	 */
 	public void softUndelete(Iterable<E> entities) {
-		entities.forEach(this::softUndelete);
+		setSoftDeletedInBulk(entities, false);
+	}
+
+	private void setSoftDeletedInBulk(Iterable<E> entities, boolean deleted) {
+		softDeleteData.checkSoftDeletable();
+		List<E> entitiesToUpdate = stream(entities).collect(toList());
+
+		for (E entity : entitiesToUpdate) {
+			if (getProvider().getIdentifier(entity) == null) {
+				throw new IllegalEntityStateException(entity, "Entity has no ID.");
+			}
+		}
+
+		boolean timestamped = Timestamped.class.isAssignableFrom(entityType);
+		Field versionField = Versioned.class.isAssignableFrom(entityType) ? listAnnotatedFields(entityType, Version.class).stream().findFirst().orElse(null) : null;
+		Instant lastModified = Instant.now();
+		List<I> ids = entitiesToUpdate.stream().map(entity -> getProvider().getIdentifier(entity)).collect(toList());
+
+		executeInBulk(update(softDeleteData.getSetClause(deleted)
+			+ (timestamped ? ", e.lastModified = :lastModified" : "")
+			+ (versionField != null ? ", e." + versionField.getName() + " = e." + versionField.getName() + " + 1" : "")
+			+ " WHERE " + idsRestriction), ids, timestamped ? singletonMap("lastModified", lastModified) : emptyMap());
+		detachByIds(ids);
+
+		entitiesToUpdate.forEach(entity -> {
+			if (isManaged(entity)) {
+				getEntityManager().detach(entity);
+			}
+
+			softDeleteData.setSoftDeleted(entity, deleted);
+
+			if (timestamped) {
+				((Timestamped) entity).setLastModified(lastModified);
+			}
+
+			if (versionField != null && ((Versioned) entity).getVersion() != null) {
+				modifyField(entity, versionField, ((Versioned) entity).getVersion() + 1); // There's no setter as JPA takes care of this.
+			}
+
+			entityListener.onPostUpdate(entity);
+		});
 	}
 
 
 	// Manage actions -------------------------------------------------------------------------------------------------
 
+	private List<E> listByIds(Collection<I> ids) {
+		return listInChunks(new ArrayList<>(ids), chunk -> createQuery(select("WHERE " + idsRestriction), p -> p.put("ids", chunk)).getResultList());
+	}
+
+	private boolean isManaged(E entity) {
+		return entity.getClass().getAnnotation(Entity.class) != null && getEntityManager().contains(entity);
+	}
+
 	/**
 	 * Make given entity managed. NOTE: This will discard any unmanaged changes in the given entity!
 	 * This is particularly useful in case you intend to make sure that you have the most recent version at hands.
@@ -1231,7 +2255,7 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 			throw new IllegalEntityStateException(entity, "Entity has no ID.");
 		}
 
-		if (entity.getClass().getAnnotation(Entity.class) != null && getEntityManager().contains(entity)) {
+		if (isManaged(entity)) {
 			return entity;
 		}
 
@@ -1304,7 +2328,11 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	 * @return Count of all foreign key references to given entity.
 	 */
 	protected long countForeignKeyReferencesTo(E entity) {
-		return countForeignKeyReferences(getEntityManager(), entityType, identifierType, manage(entity).getId());
+		Executor executor = getParallelQueryExecutor();
+		I id = manage(entity).getId();
+		return (executor != null && canForkQueries())
+			? countForeignKeyReferences(getEntityManager(), entityType, identifierType, id, executor)
+			: countForeignKeyReferences(getEntityManager(), entityType, identifierType, id);
 	}
 
 
@@ -1419,7 +2447,7 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	}
 
 	private E fetchSingularAttributes(E entity, java.util.function.Predicate<Class<?>> ofType) {
-		E managed = getById(entity.getId());
+		E managed = getById(entity.getId(), false);
 
 		for (Attribute<?, ?> a : getMetamodel().getSingularAttributes()) {
 			if (ofType.test(a.getJavaType())) {
@@ -1530,18 +2558,19 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	 * to be executed.
 	 */
 	protected <T extends E> Consumer<TypedQuery<?>> onPage(Class<T> resultType, boolean cacheable) {
+		Provider provider = getProvider();
 		return typedQuery -> {
-			if (getProvider() == HIBERNATE) {
+			if (provider == HIBERNATE) {
 				typedQuery
 					.setHint(QUERY_HINT_HIBERNATE_CACHEABLE, cacheable);
 			}
-			else if (getProvider() == ECLIPSELINK) {
+			else if (provider == ECLIPSELINK) {
 				typedQuery
 					.setHint(QUERY_HINT_ECLIPSELINK_MAINTAIN_CACHE, cacheable)
 					.setHint(QUERY_HINT_ECLIPSELINK_REFRESH, !cacheable);
 			}
 
-			if (getProvider() != OPENJPA) {
+			if (provider != OPENJPA) {
 				// OpenJPA doesn't support 2nd level cache.
 				typedQuery
 					.setHint(QUERY_HINT_CACHE_STORE_MODE, cacheable ? CacheStoreMode.USE : CacheStoreMode.REFRESH)
@@ -1577,6 +2606,10 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	 * Page first10RecordsMatchingCriteriaOrderedByBar = Page.with().allMatch(criteria).orderBy("bar", true).range(0, 10);
 	 * PartialResultList&lt;Foo&gt; foos = getPage(first10RecordsMatchingCriteriaOrderedByBar, true);
 	 * </pre>
+	 * <pre>
+	 * PagedResultList&lt;Foo&gt; first10Foos = PagedResultList.of(getPage(Page.of(0, 10), false));
+	 * PartialResultList&lt;Foo&gt; next10Foos = getPage(Page.with().cursor(first10Foos.getNextCursor()).range(0, 10).build(), false);
+	 * </pre>
 	 * @param page The page to return a partial result list for.
 	 * @param count Whether to run the <code>COUNT(id)</code> query to estimate total number of results. This will be
 	 * available by {@link PartialResultList#getEstimatedTotalNumberOfResults()}.
@@ -1588,7 +2621,7 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		// Implementation notice: we can't remove this getPage() method and rely on the other getPage() method with varargs below,
 		// because the one with varargs is incompatible as method reference for getPage(Page, boolean) in some Java versions.
 		// See https://github.com/omnifaces/omnipersistence/issues/11
-		return getPage(page, count, true, entityType, (builder, query, root) -> noop());
+		return getPage(page, count, true, new String[0]);
 	}
 
 	/**
@@ -1636,17 +2669,7 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	 * @see Criteria
 	 */
 	protected PartialResultList<E> getPage(Page page, boolean count, boolean cacheable, String... fetchFields) {
-		return getPage(page, count, cacheable, entityType, (builder, query, root) -> {
-			for (String fetchField : fetchFields) {
-				FetchParent<?, ?> fetchParent = root;
-
-				for (String attribute : fetchField.split("\\.")) {
-					fetchParent = fetchParent.fetch(attribute);
-				}
-			}
-
-			return null;
-		});
+		return getPage(new PageBuilder<>(page, cacheable, entityType, buildFetches(fetchFields), fetchFields, 0), count);
 	}
 
 	/**
@@ -1728,23 +2751,419 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	 * @see Criteria
 	 */
 	protected <T extends E> PartialResultList<T> getPage(Page page, boolean count, boolean cacheable, Class<T> resultType, MappedQueryBuilder<T> queryBuilder) {
+		return getPage(new PageBuilder<>(page, cacheable, resultType, queryBuilder), count);
+	}
+
+	/**
+	 * Returns whether at least one entity matches the required and optional criteria of given {@link Page}. This does
+	 * not count the entities but selects at most one ID. The offset, limit and ordering of the page are ignored.
+	 * <p>
+	 * Usage example:
+	 * <pre>
+	 * boolean hasMales = exists(Page.with().allMatch(Collections.singletonMap("gender", MALE)).build());
+	 * </pre>
+	 * @param page The page whose criteria to check.
+	 * @return Whether at least one entity matches the criteria of given {@link Page}.
+	 * @see Page
+	 * @see Criteria
+	 */
+	public boolean exists(Page page) {
+		Page existsPage = new Page(0, 1, null, page.getRequiredCriteria(), page.getOptionalCriteria());
+		PageBuilder<E> pageBuilder = new PageBuilder<>(existsPage, false, entityType, buildFetches(), new String[0], 0);
+		return !getPageResultList(buildIdQuery(pageBuilder, getEntityManager().getCriteriaBuilder())).isEmpty();
+	}
+
+	private <T extends E> PagedResultList<T> getPage(PageBuilder<T> pageBuilder, boolean count) {
 		beforePage().accept(getEntityManager());
 
 		try {
-			logger.log(FINER, () -> format(LOG_FINER_GET_PAGE, page, count, cacheable, resultType));
-			PageBuilder<T> pageBuilder = new PageBuilder<>(page, cacheable, resultType, queryBuilder);
-			CriteriaBuilder criteriaBuilder = getEntityManager().getCriteriaBuilder();
-			TypedQuery<T> entityQuery = buildEntityQuery(pageBuilder, criteriaBuilder);
-			TypedQuery<Long> countQuery = count ? buildCountQuery(pageBuilder, criteriaBuilder) : null;
-			PartialResultList<T> resultList = executeQuery(pageBuilder, entityQuery, countQuery);
+			boolean lazyCount = count && isLazyCountEnabled();
+			logger.log(FINER, () -> format(LOG_FINER_GET_PAGE, pageBuilder.getPage(), count, lazyCount, pageBuilder.isCacheable(), pageBuilder.getResultType()));
+			PageCache pageCache = (pageBuilder.isCacheable() && pageBuilder.getFetchFields() != null && getPageCacheSize() > 0 && !getEntityManager().isJoinedToTransaction()) ? PageCache.of(getClass(), entityType, getPageCacheSize()) : null;
+			List<Object> pageCacheKey = (pageCache != null) ? asList(pageBuilder.getResultType(), pageBuilder.getPage(), asList(pageBuilder.getFetchFields()), count && !lazyCount) : null;
+			long pageCacheGeneration = (pageCache != null) ? pageCache.generation() : 0;
+			PagedResultList<T> cachedResultList = (pageCache != null) ? pageCache.get(pageCacheKey) : null;
+			PagedResultList<T> resultList = (cachedResultList != null) ? cachedResultList : executeSingleFlightPage(pageBuilder, count && !lazyCount);
 			logger.log(FINER, () -> format(LOG_FINER_QUERY_RESULT, resultList, resultList.getEstimatedTotalNumberOfResults()));
-			return resultList;
+
+			if (pageCache != null && cachedResultList == null) {
+				pageCache.put(pageCacheKey, resultList, pageCacheGeneration, getPageCacheTimeToLive());
+			}
+
+			return lazyCount ? new PagedResultList<>(resultList, buildLazyCount(pageBuilder)) : resultList;
 		}
 		finally {
 			afterPage().accept(getEntityManager());
 		}
 	}
 
+	private <T extends E> PagedResultList<T> executeSingleFlightPage(PageBuilder<T> pageBuilder, boolean count) {
+		long singleFlightTimeout = getSingleFlightTimeout();
+
+		if (singleFlightTimeout <= 0 || pageBuilder.getFetchFields() == null || !canCoalesce()) {
+			return executePage(pageBuilder, count);
+		}
+
+		List<Object> key = asList(getClass(), pageBuilder.getResultType(), pageBuilder.getPage(), asList(pageBuilder.getFetchFields()), count, pageBuilder.isCacheable());
+		return SingleFlight.execute(key, singleFlightTimeout, () -> executePage(pageBuilder, count));
+	}
+
+	private <T extends E> PagedResultList<T> executePage(PageBuilder<T> pageBuilder, boolean count) {
+		int estimatedRowCount = (count && shouldUseEstimatedRowCount(pageBuilder)) ? getEstimatedRowCount() : -1;
+		List<Object> countCacheKey = (count && estimatedRowCount < 0) ? buildCountCacheKey(pageBuilder) : null;
+		CountCache countCache = (countCacheKey != null) ? CountCache.of(entityType) : null;
+		long countCacheGeneration = (countCache != null) ? countCache.generation() : 0;
+		Integer cachedCount = (countCache != null) ? getCachedCount(pageBuilder, countCache, countCacheKey) : null;
+		int knownCount = (cachedCount != null) ? cachedCount : estimatedRowCount;
+		PagedResultList<T> resultList = executePage(pageBuilder, count && knownCount < 0, knownCount);
+
+		if (countCache != null && cachedCount == null) {
+			countCache.put(countCacheKey, resultList.getEstimatedTotalNumberOfResults(), countCacheGeneration, getCountCacheTimeToLive(), getCountCacheStaleWhileRevalidate());
+		}
+
+		return resultList;
+	}
+
+	private <T extends E> PagedResultList<T> executePage(PageBuilder<T> pageBuilder, boolean exactCount, int knownCount) {
+		CriteriaBuilder criteriaBuilder = getEntityManager().getCriteriaBuilder();
+		Executor executor = getParallelQueryExecutor();
+		TypedQuery<Object[]> idQuery = shouldBuildDeferredJoin(pageBuilder) ? buildIdQuery(pageBuilder, criteriaBuilder) : null;
+
+		if (idQuery != null) {
+			CompletableFuture<Integer> forkedCountQuery = (exactCount && executor != null && canForkQueries()) ? forkCountQuery(buildCountQuery(pageBuilder, criteriaBuilder), executor) : null;
+			TypedQuery<Long> countQuery = (exactCount && forkedCountQuery == null) ? buildCountQuery(pageBuilder, criteriaBuilder).apply(getEntityManager()) : null;
+			List<T> entities = cancelOnFailure(forkedCountQuery, () -> getDeferredResultList(pageBuilder, idQuery));
+			return executeQuery(pageBuilder, entities, (forkedCountQuery != null) ? join(forkedCountQuery) : getEstimatedTotalNumberOfResults(countQuery, knownCount));
+		}
+
+		TypedQuery<Object[]> windowedEntityQuery = (exactCount && shouldBuildWindowedCount(pageBuilder)) ? buildWindowedEntityQuery(pageBuilder, criteriaBuilder) : null;
+
+		if (windowedEntityQuery != null) {
+			List<Object[]> rows = getPageResultList(windowedEntityQuery);
+			List<T> entities = rows.stream().map(row -> pageBuilder.getResultType().cast(row[0])).collect(toList());
+			int estimatedTotalNumberOfResults = rows.isEmpty() ? getEstimatedTotalNumberOfResults(buildCountQuery(pageBuilder, criteriaBuilder).apply(getEntityManager())) : ((Number) rows.get(0)[1]).intValue();
+			return executeQuery(pageBuilder, entities, estimatedTotalNumberOfResults);
+		}
+
+		TypedQuery<T> entityQuery = buildEntityQuery(pageBuilder, criteriaBuilder);
+		CompletableFuture<Integer> forkedCountQuery = (exactCount && executor != null && canForkQueries()) ? forkCountQuery(buildCountQuery(pageBuilder, criteriaBuilder), executor) : null;
+		TypedQuery<Long> countQuery = (exactCount && forkedCountQuery == null) ? buildCountQuery(pageBuilder, criteriaBuilder).apply(getEntityManager()) : null;
+		List<T> entities = cancelOnFailure(forkedCountQuery, () -> getPageResultList(entityQuery));
+		return executeQuery(pageBuilder, entities, (forkedCountQuery != null) ? join(forkedCountQuery) : getEstimatedTotalNumberOfResults(countQuery, knownCount));
+	}
+
+	/**
+	 * Builds the lazy count of given page builder. It does not refer this service instance, which may already serve
+	 * another caller by the time the lazy count is invoked, but only the entity manager and callbacks as obtained now
+	 * and the count query as built now. It uses the count cache the same way as an eager count.
+	 */
+	private <T extends E> IntSupplier buildLazyCount(PageBuilder<T> pageBuilder) {
+		EntityManager entityManager = getEntityManager();
+		Consumer<EntityManager> beforePage = beforePage();
+		Consumer<EntityManager> afterPage = afterPage();
+		Page page = pageBuilder.getPage();
+		String estimatedRowCountQuery = shouldUseEstimatedRowCount(pageBuilder) ? getDatabase().buildEstimatedRowCountQuery() : null;
+		String tableName = (estimatedRowCountQuery != null) ? getProvider().getTableName(entityType) : null;
+		int exactCountThreshold = getExactCountThreshold();
+		List<Object> countCacheKey = (estimatedRowCountQuery == null) ? buildCountCacheKey(pageBuilder) : null;
+		CountCache countCache = (countCacheKey != null) ? CountCache.of(entityType) : null;
+		long countCacheTimeToLive = getCountCacheTimeToLive();
+		long countCacheStaleWhileRevalidate = getCountCacheStaleWhileRevalidate();
+		Function<EntityManager, TypedQuery<Long>> countQuery = buildDetachedCountQuery(pageBuilder);
+		Provider provider = this.provider;
+		Class<E> entityType = this.entityType;
+
+		return () -> {
+			beforePage.accept(entityManager);
+
+			try {
+				int estimatedRowCount = (estimatedRowCountQuery != null) ? getEstimatedRowCount(entityManager, estimatedRowCountQuery, tableName, exactCountThreshold) : -1;
+
+				if (estimatedRowCount >= 0) {
+					return estimatedRowCount;
+				}
+
+				long countCacheGeneration = (countCache != null) ? countCache.generation() : 0;
+				Integer cachedCount = (countCache != null) ? countCache.get(countCacheKey, null) : null;
+
+				if (cachedCount != null) {
+					return cachedCount;
+				}
+
+				int estimatedTotalNumberOfResults = executeCountQuery(provider, entityType, countQuery.apply(entityManager));
+				logger.log(FINER, () -> format(LOG_FINER_LAZY_COUNT, page, estimatedTotalNumberOfResults));
+
+				if (countCache != null) {
+					countCache.put(countCacheKey, estimatedTotalNumberOfResults, countCacheGeneration, countCacheTimeToLive, countCacheStaleWhileRevalidate);
+				}
+
+				return estimatedTotalNumberOfResults;
+			}
+			catch (RuntimeException e) {
+				throw new IllegalStateException(format(ERROR_LAZY_COUNT_UNAVAILABLE, page), e);
+			}
+			finally {
+				afterPage.accept(entityManager);
+			}
+		};
+	}
+
+	/**
+	 * Builds the count query independently from the entity query of given page builder, which may not have been built
+	 * at all when the page was obtained from the page cache or from a concurrent caller, so that whether the count
+	 * subquery is needed is determined once again.
+	 */
+	private <T extends E> Function<EntityManager, TypedQuery<Long>> buildDetachedCountQuery(PageBuilder<T> pageBuilder) {
+		CriteriaBuilder criteriaBuilder = getEntityManager().getCriteriaBuilder();
+		PageBuilder<T> countPageBuilder = new PageBuilder<>(pageBuilder.getPage(), pageBuilder.isCacheable(), pageBuilder.getResultType(), pageBuilder.getQueryBuilder(), pageBuilder.getFetchFields(), pageBuilder.getFetchSize());
+		buildEntityQuery(countPageBuilder, criteriaBuilder);
+		return buildCountQuery(countPageBuilder, criteriaBuilder);
+	}
+
+	/**
+	 * Returns whether read queries can be executed with {@link #getParallelQueryExecutor()}, each on its own new entity
+	 * manager and thus on its own connection, while still observing the same data as the current entity manager would.
+	 * This is only the case when the current entity manager is not joined to a transaction. A transaction may have
+	 * flushed changes which are invisible to other connections, regardless of its isolation level.
+	 */
+	private boolean canForkQueries() {
+		return !getEntityManager().isJoinedToTransaction();
+	}
+
+	/**
+	 * Builds the count query on a new entity manager and executes it with given executor, so that it runs in parallel
+	 * with the entity query on a separate connection. The new entity manager is closed once the count query is done,
+	 * or once the returned future is cancelled before the count query is started.
+	 */
+	private CompletableFuture<Integer> forkCountQuery(Function<EntityManager, TypedQuery<Long>> countQueryBuilder, Executor executor) {
+		EntityManager entityManager = getEntityManager().getEntityManagerFactory().createEntityManager();
+		Consumer<EntityManager> afterPage = afterPage();
+		Provider provider = this.provider;
+		Class<E> entityType = this.entityType;
+		AtomicBoolean started = new AtomicBoolean();
+
+		try {
+			beforePage().accept(entityManager);
+			TypedQuery<Long> countQuery = countQueryBuilder.apply(entityManager);
+			CompletableFuture<Integer> forkedCountQuery = supplyAsync(() -> {
+				if (!started.compareAndSet(false, true)) {
+					throw new CancellationException();
+				}
+
+				try {
+					return executeCountQuery(provider, entityType, countQuery);
+				}
+				finally {
+					closeForkedEntityManager(entityManager, afterPage);
+				}
+			}, executor);
+			forkedCountQuery.whenComplete((count, exception) -> {
+				if (started.compareAndSet(false, true)) {
+					closeForkedEntityManager(entityManager, afterPage);
+				}
+			});
+			return forkedCountQuery;
+		}
+		catch (RuntimeException e) {
+			closeForkedEntityManager(entityManager, afterPage);
+			throw e;
+		}
+	}
+
+	private static void closeForkedEntityManager(EntityManager entityManager, Consumer<EntityManager> afterPage) {
+		try {
+			afterPage.accept(entityManager);
+		}
+		finally {
+			entityManager.close();
+		}
+	}
+
+	/**
+	 * Executes given query and cancels given forked query when it fails, so that the forked query does not needlessly
+	 * occupy a connection.
+	 */
+	private static <R> R cancelOnFailure(CompletableFuture<?> forkedQuery, Supplier<R> query) {
+		try {
+			return query.get();
+		}
+		catch (RuntimeException | Error e) {
+			if (forkedQuery != null) {
+				forkedQuery.cancel(true);
+			}
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the key of the count cache for given page builder, or <code>null</code> when the count cache is disabled
+	 * or when the count cannot be reliably cached because a custom query builder is used. Next to the result type and
+	 * the criteria, the key covers everything else which may influence the count: the service class, the persistence
+	 * unit and the callback of {@link #beforePage()}.
+	 */
+	private <T extends E> List<Object> buildCountCacheKey(PageBuilder<T> pageBuilder) {
+		if (getCountCacheTimeToLive() <= 0 || pageBuilder.getFetchFields() == null || getEntityManager().isJoinedToTransaction()) {
+			return null;
+		}
+
+		Page page = pageBuilder.getPage();
+		return asList(getClass(), getEntityManager().getEntityManagerFactory(), beforePage(), pageBuilder.getResultType(), buildCountCacheCriteria(page.getRequiredCriteria()), buildCountCacheCriteria(page.getOptionalCriteria()));
+	}
+
+	private static Map<String, Object> buildCountCacheCriteria(Map<String, Object> criteria) {
+		Map<String, Object> canonicalCriteria = new TreeMap<>();
+		criteria.forEach((field, value) -> canonicalCriteria.put(field, (value != null && value.getClass().isArray()) ? stream(value).collect(toList()) : value));
+		return canonicalCriteria;
+	}
+
+	private <T extends E> Integer getCachedCount(PageBuilder<T> pageBuilder, CountCache countCache, List<Object> countCacheKey) {
+		Executor executor = getParallelQueryExecutor();
+		Supplier<CompletableFuture<Integer>> refresh = (executor != null) ? () -> forkCountQuery(buildDetachedCountQuery(pageBuilder), executor) : null;
+		return countCache.get(countCacheKey, refresh);
+	}
+
+	private <T extends E> boolean shouldUseEstimatedRowCount(PageBuilder<T> pageBuilder) {
+		Page page = pageBuilder.getPage();
+		return getExactCountThreshold() != MAX_VALUE
+			&& getDatabase() != Database.UNKNOWN
+			&& pageBuilder.getFetchFields() != null // A custom query builder may restrict the results on its own.
+			&& page.getRequiredCriteria().isEmpty()
+			&& page.getOptionalCriteria().isEmpty()
+			&& getProvider().isSingleTable(entityType);
+	}
+
+	/**
+	 * Returns the estimated row count of the table of the current entity from the table statistics of the database, or
+	 * <code>-1</code> when it is unavailable or below {@link #getExactCountThreshold()}.
+	 */
+	private int getEstimatedRowCount() {
+		return getEstimatedRowCount(getEntityManager(), getDatabase().buildEstimatedRowCountQuery(), getProvider().getTableName(entityType), getExactCountThreshold());
+	}
+
+	private static int getEstimatedRowCount(EntityManager entityManager, String estimatedRowCountQuery, String tableName, int exactCountThreshold) {
+		List<?> results = entityManager.createNativeQuery(estimatedRowCountQuery).setParameter(1, tableName).getResultList();
+		long estimatedRowCount = (results.isEmpty() || results.get(0) == null) ? -1 : ((Number) results.get(0)).longValue();
+		logger.log(FINER, () -> format(LOG_FINER_ESTIMATED_ROW_COUNT, tableName, estimatedRowCount, exactCountThreshold));
+		return (estimatedRowCount >= exactCountThreshold) ? (int) Math.min(estimatedRowCount, MAX_VALUE) : -1;
+	}
+
+	/**
+	 * Returns a stream of all entities. This will not cache the results.
+	 * <p>
+	 * Usage example: see {@link #getStream(Page)}.
+	 * @return A stream of all entities.
+	 * @see #getStream(Page)
+	 */
+	public Stream<E> getStream() {
+		return getStream(Page.ALL);
+	}
+
+	/**
+	 * Returns a stream of entities based on given {@link Page}. This will not cache the results.
+	 * <p>
+	 * Unlike {@link #getPage(Page, boolean)} and {@link #list()}, this does not load all entities into memory at once.
+	 * The entities are fetched in chunks of {@link #getFetchSize()}, of which the first one is fetched immediately and
+	 * the next ones lazily. The next chunks use value based paging, for which the ID is appended to the ordering when
+	 * absent, so that each chunk continues exactly where the previous one ended. This requires that all ordering fields
+	 * are non-nullable attributes of the entity, because rows whose ordering field is <code>NULL</code> would otherwise
+	 * be skipped, so else offset based paging is used instead, which is slower on large offsets. The entities of a chunk
+	 * are detached from the persistence context as soon as the next chunk is fetched, so changes in streamed entities
+	 * won't be flushed. The stream does not refer this service instance, but only the entity manager and the queries as
+	 * obtained during this invocation, so it must be consumed within the same transaction.
+	 * <p>
+	 * Usage example:
+	 * <pre>
+	 * Page activeFoos = Page.with().allMatch(singletonMap("active", true)).build();
+	 * try (Stream&lt;Foo&gt; foos = getStream(activeFoos)) {
+	 *     foos.forEach(report::add);
+	 * }
+	 * </pre>
+	 * @param page The page to return a stream for.
+	 * @return A stream of entities based on given {@link Page}.
+	 * @see Page
+	 * @see Criteria
+	 */
+	public Stream<E> getStream(Page page) {
+		LinkedHashMap<String, Boolean> ordering = new LinkedHashMap<>(page.getOrdering());
+		ordering.putIfAbsent(ID, false);
+		int fetchSize = getFetchSize();
+		EntityManager entityManager = getEntityManager();
+		Consumer<EntityManager> beforePage = beforePage();
+		Consumer<EntityManager> afterPage = afterPage();
+
+		Page offsetChunk = new Page(page.getOffset(), fetchSize, null, false, ordering, page.getRequiredCriteria(), page.getOptionalCriteria());
+		Function<EntityManager, TypedQuery<E>> offsetQuery = buildDetachedEntityQuery(new PageBuilder<>(offsetChunk, false, entityType, buildFetches(), new String[0], fetchSize));
+		List<E> firstChunk = getChunk(entityManager, beforePage, afterPage, () -> offsetQuery.apply(entityManager).setFirstResult(page.getOffset()), Math.min(fetchSize, page.getLimit()));
+
+		Function<EntityManager, TypedQuery<E>> valueBasedQuery = null;
+
+		if (firstChunk.size() == fetchSize && ordering.keySet().stream().allMatch(this::isNonNullableAttribute)) {
+			Page valueBasedChunk = new Page(page.getOffset() + fetchSize, fetchSize, firstChunk.get(fetchSize - 1), false, ordering, page.getRequiredCriteria(), page.getOptionalCriteria());
+			valueBasedQuery = buildDetachedEntityQuery(new PageBuilder<>(valueBasedChunk, false, entityType, buildFetches(), new String[0], fetchSize));
+		}
+
+		Function<EntityManager, TypedQuery<E>> nextQuery = valueBasedQuery;
+		ChunkedIterator<E> iterator = new ChunkedIterator<>(page.getOffset(), page.getLimit(), fetchSize, (last, offset, limit) -> {
+			if (last == null) {
+				return firstChunk;
+			}
+
+			return getChunk(entityManager, beforePage, afterPage, () -> (nextQuery != null)
+				? setValueBasedPagingParameters(nextQuery.apply(entityManager), ordering.keySet(), last)
+				: offsetQuery.apply(entityManager).setFirstResult(offset), limit);
+		}, chunk -> chunk.forEach(entityManager::detach));
+
+		return StreamSupport.stream(spliteratorUnknownSize(iterator, ORDERED | NONNULL), false);
+	}
+
+	private static <T> List<T> getChunk(EntityManager entityManager, Consumer<EntityManager> beforePage, Consumer<EntityManager> afterPage, Supplier<TypedQuery<T>> chunkQuery, int limit) {
+		beforePage.accept(entityManager);
+
+		try {
+			return chunkQuery.get().setMaxResults(limit).getResultList();
+		}
+		finally {
+			afterPage.accept(entityManager);
+		}
+	}
+
+	private static <T> TypedQuery<T> setValueBasedPagingParameters(TypedQuery<T> typedQuery, Set<String> fields, T last) {
+		fields.forEach(field -> typedQuery.setParameter(UncheckedParameterBuilder.getName(field, PAGING_CRITERIA, 0), invokeGetter(last, field)));
+		return typedQuery;
+	}
+
+	/**
+	 * Returns whether given field is a non-nullable attribute of the entity, so that it can be used for value based
+	 * paging without skipping rows.
+	 */
+	private boolean isNonNullableAttribute(String field) {
+		if (ID.equals(field)) {
+			return true;
+		}
+
+		try {
+			Attribute<? super E, ?> attribute = getEntityManager().getMetamodel().entity(entityType).getAttribute(field);
+			return attribute instanceof SingularAttribute && !((SingularAttribute<? super E, ?>) attribute).isOptional();
+		}
+		catch (IllegalArgumentException e) {
+			return false; // Nested or unknown field.
+		}
+	}
+
+	/**
+	 * Returns the amount of distinct statements which the JPA provider has generated so far for the queries performed by
+	 * {@link #getPage(Page, boolean)} and {@link #exists(Page)} for the entity of this service. Pages of the same shape
+	 * produce the same statement, because the criteria are always applied in the same order with parameter names derived
+	 * from the criteria fields. This allows you to measure how well the query plan cache of the JPA provider and the
+	 * prepared statement cache of the database are utilized. Depending on the JPA provider, the statements are JPQL or
+	 * SQL, see {@link Provider#getQueryString(javax.persistence.Query)}. This is always 0 for {@link Provider#UNKNOWN}.
+	 * @return The amount of distinct page statements generated so far for the entity of this service.
+	 */
+	public int getPageStatementCount() {
+		return PageStatements.count(entityType);
+	}
+
 
 	// Query actions --------------------------------------------------------------------------------------------------
 
@@ -1757,12 +3176,86 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		return buildTypedQuery(pageBuilder, entityQuery, entityQueryRoot, parameters);
 	}
 
-	private <T extends E> TypedQuery<Long> buildCountQuery(PageBuilder<T> pageBuilder, CriteriaBuilder criteriaBuilder) {
+	/**
+	 * Builds the entity query of given page builder and returns a function which creates it on given entity manager,
+	 * without applying the range. The function does not refer this service instance, so that it can be applied after
+	 * this service instance has been returned to the pool.
+	 */
+	private Function<EntityManager, TypedQuery<E>> buildDetachedEntityQuery(PageBuilder<E> pageBuilder) {
+		CriteriaBuilder criteriaBuilder = getEntityManager().getCriteriaBuilder();
+		CriteriaQuery<E> entityQuery = criteriaBuilder.createQuery(entityType);
+		Root<E> entityQueryRoot = buildRoot(entityQuery);
+		PathResolver pathResolver = buildSelection(pageBuilder, entityQuery, entityQueryRoot, criteriaBuilder);
+		buildOrderBy(pageBuilder, entityQuery, criteriaBuilder, pathResolver);
+		Map<String, Object> parameters = buildRestrictions(pageBuilder, entityQuery, criteriaBuilder, pathResolver);
+		Consumer<TypedQuery<?>> onPage = onPage(pageBuilder.getResultType(), pageBuilder.isCacheable());
+		Provider provider = getProvider();
+		int fetchSize = pageBuilder.getFetchSize();
+		EclipseLinkRoot<E> postponedFetches = (entityQueryRoot instanceof EclipseLinkRoot && hasJoins(entityQueryRoot)) ? (EclipseLinkRoot<E>) entityQueryRoot : null;
+
+		return entityManager -> {
+			TypedQuery<E> typedQuery = entityManager.createQuery(entityQuery);
+			buildFetchSize(provider, fetchSize, typedQuery);
+
+			if (postponedFetches != null) {
+				postponedFetches.runPostponedFetches(typedQuery);
+			}
+
+			setMappedParameters(typedQuery, parameters);
+			onPage.accept(typedQuery);
+			return typedQuery;
+		};
+	}
+
+	/**
+	 * Builds the count query of given page builder and returns a function which creates it on given entity manager. The
+	 * function does not refer this service instance, so that it can be applied after this service instance has been
+	 * returned to the pool.
+	 */
+	private <T extends E> Function<EntityManager, TypedQuery<Long>> buildCountQuery(PageBuilder<T> pageBuilder, CriteriaBuilder criteriaBuilder) {
+		Function<EntityManager, TypedQuery<Long>> flatCountQuery = pageBuilder.shouldBuildCountSubquery() ? buildFlatCountQuery(pageBuilder, criteriaBuilder) : null;
+
+		if (flatCountQuery != null) {
+			return flatCountQuery;
+		}
+
 		CriteriaQuery<Long> countQuery = criteriaBuilder.createQuery(Long.class);
 		Root<E> countQueryRoot = countQuery.from(entityType);
 		countQuery.select(criteriaBuilder.count(countQueryRoot));
 		Map<String, Object> parameters = pageBuilder.shouldBuildCountSubquery() ? buildCountSubquery(pageBuilder, countQuery, countQueryRoot, criteriaBuilder) : emptyMap();
-		return buildTypedQuery(pageBuilder, countQuery, null, parameters);
+		return buildCountQuery(pageBuilder, countQuery, parameters);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <T extends E> Function<EntityManager, TypedQuery<Long>> buildFlatCountQuery(PageBuilder<T> pageBuilder, CriteriaBuilder criteriaBuilder) {
+		// SELECT COUNT(e) FROM E e [joins] WHERE [restrictions]
+		// This is only equivalent to the count subquery when nothing multiplies or groups the rows, i.e. when there are no
+		// to-many joins, no GROUP BY and no HAVING. Fetches are dropped and value based paging is not applied.
+		Page page = pageBuilder.getPage();
+		Page countPage = new Page(null, null, new LinkedHashMap<>(page.getOrdering()), page.getRequiredCriteria(), page.getOptionalCriteria());
+		MappedQueryBuilder<T> countQueryBuilder = (pageBuilder.getFetchFields() == null) ? pageBuilder.getQueryBuilder() : (MappedQueryBuilder) buildFetches();
+		PageBuilder<T> countPageBuilder = new PageBuilder<>(countPage, pageBuilder.isCacheable(), pageBuilder.getResultType(), countQueryBuilder);
+		CriteriaQuery<Long> countQuery = criteriaBuilder.createQuery(Long.class);
+		Root<E> countQueryRoot = buildRoot((CriteriaQuery) countQuery);
+		PathResolver pathResolver = buildSelection(countPageBuilder, (CriteriaQuery) countQuery, countQueryRoot, criteriaBuilder);
+		Map<String, Object> parameters = buildRestrictions(countPageBuilder, (CriteriaQuery) countQuery, criteriaBuilder, pathResolver);
+
+		if (!countQuery.getGroupList().isEmpty() || countQuery.getGroupRestriction() != null || hasPluralJoins(countQueryRoot) || hasFetches(countQueryRoot)) {
+			return null;
+		}
+
+		countQuery.distinct(false).select(criteriaBuilder.count(countQueryRoot));
+		return buildCountQuery(pageBuilder, countQuery, parameters);
+	}
+
+	private <T extends E> Function<EntityManager, TypedQuery<Long>> buildCountQuery(PageBuilder<T> pageBuilder, CriteriaQuery<Long> countQuery, Map<String, Object> parameters) {
+		Consumer<TypedQuery<?>> onPage = onPage(pageBuilder.getResultType(), pageBuilder.isCacheable());
+		return entityManager -> {
+			TypedQuery<Long> typedQuery = entityManager.createQuery(countQuery);
+			setMappedParameters(typedQuery, parameters);
+			onPage.accept(typedQuery);
+			return typedQuery;
+		};
 	}
 
 	private <T extends E> Map<String, Object> buildCountSubquery(PageBuilder<T> pageBuilder, CriteriaQuery<Long> countQuery, Root<E> countRoot, CriteriaBuilder criteriaBuilder) {
@@ -1771,13 +3264,13 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		PathResolver subqueryPathResolver = buildSelection(pageBuilder, countSubquery, countSubqueryRoot, criteriaBuilder);
 		Map<String, Object> parameters = buildRestrictions(pageBuilder, countSubquery, criteriaBuilder, subqueryPathResolver);
 
-		if (getProvider() == HIBERNATE) {
+		if (getProvider() == HIBERNATE && getDatabase() != MYSQL) {
 			// SELECT COUNT(e) FROM E e WHERE e IN (SELECT t FROM T t WHERE [restrictions])
 			countQuery.where(criteriaBuilder.in(countRoot).value(countSubquery));
 			// EclipseLink (tested 2.6.4) fails here with an incorrect selection in subquery: SQLException: Database "T1" not found; SQL statement: SELECT COUNT(t0.ID) FROM PERSON t0 WHERE t0.ID IN (SELECT DISTINCT t1.ID.t1.ID FROM PERSON t1 WHERE [...])
 			// OpenJPA (tested 2.4.2) fails here as it doesn't interpret root as @Id: org.apache.openjpa.persistence.ArgumentException: Filter invalid. Cannot compare value of type optimusfaces.test.Person to value of type java.lang.Long.
 		}
-		else if (getProvider() == OPENJPA) {
+		else if (getProvider() == OPENJPA && getDatabase() != MYSQL) {
 			// SELECT COUNT(e) FROM E e WHERE e.id IN (SELECT t.id FROM T t WHERE [restrictions])
 			countQuery.where(criteriaBuilder.in(countRoot.get(ID)).value(countSubquery));
 			// Hibernate (tested 5.0.10) fails here when DTO is used as it does not have a mapped ID.
@@ -1787,14 +3280,71 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 			// SELECT COUNT(e) FROM E e WHERE EXISTS (SELECT t.id FROM T t WHERE [restrictions] AND t.id = e.id)
 			countQuery.where(criteriaBuilder.exists(countSubquery.where(conjunctRestrictionsIfNecessary(criteriaBuilder, countSubquery.getRestriction(), criteriaBuilder.equal(countSubqueryRoot.get(ID), countRoot.get(ID))))));
 			// Hibernate (tested 5.0.10) and OpenJPA (tested 2.4.2) also support this but this is a tad less efficient than IN.
+			// Except on MySQL, which cannot convert an IN subquery with GROUP BY or HAVING into a semijoin, while this one can use the primary key.
 		}
 
 		return parameters;
 	}
 
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <T extends E> TypedQuery<Object[]> buildIdQuery(PageBuilder<T> pageBuilder, CriteriaBuilder criteriaBuilder) {
+		// SELECT e.id, [ordering] FROM E e WHERE [restrictions] ORDER BY [ordering] so that the window can ideally be selected from an index only.
+		PageBuilder<T> idPageBuilder = (pageBuilder.getFetchFields() == null) ? pageBuilder
+			: new PageBuilder<>(pageBuilder.getPage(), pageBuilder.isCacheable(), pageBuilder.getResultType(), (MappedQueryBuilder) buildFetches(), pageBuilder.getFetchFields(), pageBuilder.getFetchSize());
+		CriteriaQuery<Object[]> idQuery = criteriaBuilder.createQuery(Object[].class);
+		Root<E> idQueryRoot = buildRoot((CriteriaQuery) idQuery);
+		PathResolver pathResolver = buildSelection(idPageBuilder, (CriteriaQuery) idQuery, idQueryRoot, criteriaBuilder);
+
+		if (!idPageBuilder.canBuildDeferredJoin() || hasFetches(idQueryRoot)) {
+			return null; // Fetches of a custom query builder cannot be selected without their owner.
+		}
+
+		buildOrderBy(idPageBuilder, (CriteriaQuery) idQuery, criteriaBuilder, pathResolver);
+		Map<String, Object> parameters = buildRestrictions(idPageBuilder, (CriteriaQuery) idQuery, criteriaBuilder, pathResolver);
+		pageBuilder.shouldBuildCountSubquery(idPageBuilder.shouldBuildCountSubquery()); // The count query is built from the original page builder.
+		List<Selection<?>> selection = new ArrayList<>();
+		selection.add(idQueryRoot.get(ID));
+		pageBuilder.getPage().getOrdering().keySet().forEach(field -> selection.add(pathResolver.get(field))); // Ordering must be selected as well when DISTINCT is applied.
+		idQuery.multiselect(selection);
+		return buildTypedQuery(idPageBuilder, idQuery, idQueryRoot, parameters);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <T extends E> TypedQuery<Object[]> buildWindowedEntityQuery(PageBuilder<T> pageBuilder, CriteriaBuilder criteriaBuilder) {
+		// SELECT e, COUNT(*) OVER() FROM E e WHERE [restrictions] ORDER BY [ordering]
+		CriteriaQuery<Object[]> entityQuery = criteriaBuilder.createQuery(Object[].class);
+		Root<E> entityQueryRoot = buildRoot((CriteriaQuery) entityQuery);
+		PathResolver pathResolver = buildSelection(pageBuilder, (CriteriaQuery) entityQuery, entityQueryRoot, criteriaBuilder);
+		buildOrderBy(pageBuilder, (CriteriaQuery) entityQuery, criteriaBuilder, pathResolver);
+		Map<String, Object> parameters = buildRestrictions(pageBuilder, (CriteriaQuery) entityQuery, criteriaBuilder, pathResolver);
+
+		if (entityQuery.isDistinct() || !entityQuery.getGroupList().isEmpty() || hasPluralJoins(entityQueryRoot) || hasPluralFetches(pageBuilder)) {
+			return null; // The window would otherwise count the joined or grouped rows instead of the entities.
+		}
+
+		if (entityQueryRoot instanceof EclipseLinkRoot && hasFetches(entityQueryRoot)) {
+			return null; // EclipseLink postpones fetches to query hints, which are not applicable on a multiselect.
+		}
+
+		Root<E> unwrappedRoot = (entityQueryRoot instanceof RootWrapper) ? ((RootWrapper<E>) entityQueryRoot).getWrapped() : entityQueryRoot;
+		Expression<Long> windowedCount = getProvider().buildWindowedCount(getEntityManager().getEntityManagerFactory(), criteriaBuilder, unwrappedRoot);
+
+		if (windowedCount == null) {
+			return null;
+		}
+
+		entityQuery.multiselect(entityQueryRoot, windowedCount);
+		return buildTypedQuery(pageBuilder, entityQuery, entityQueryRoot, parameters);
+	}
+
 	private <T extends E, Q> TypedQuery<Q> buildTypedQuery(PageBuilder<T> pageBuilder, CriteriaQuery<Q> criteriaQuery, Root<E> root, Map<String, Object> parameters) {
-		TypedQuery<Q> typedQuery = getEntityManager().createQuery(criteriaQuery);
+		return buildTypedQuery(getEntityManager(), pageBuilder, criteriaQuery, root, parameters);
+	}
+
+	private <T extends E, Q> TypedQuery<Q> buildTypedQuery(EntityManager entityManager, PageBuilder<T> pageBuilder, CriteriaQuery<Q> criteriaQuery, Root<E> root, Map<String, Object> parameters) {
+		TypedQuery<Q> typedQuery = entityManager.createQuery(criteriaQuery);
 		buildRange(pageBuilder, typedQuery, root);
+		buildFetchSize(getProvider(), pageBuilder.getFetchSize(), typedQuery);
 		setMappedParameters(typedQuery, parameters);
 		onPage(pageBuilder.getResultType(), pageBuilder.isCacheable()).accept(typedQuery);
 		return typedQuery;
@@ -1805,7 +3355,7 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		range(0, positionalParameters.length).forEach(i -> typedQuery.setParameter(i, positionalParameters[i]));
 	}
 
-	private <Q> void setMappedParameters(TypedQuery<Q> typedQuery, Map<String, Object> mappedParameters) {
+	private static <Q> void setMappedParameters(TypedQuery<Q> typedQuery, Map<String, Object> mappedParameters) {
 		logger.log(FINER, () -> format(LOG_FINER_SET_PARAMETER_VALUES, mappedParameters));
 		mappedParameters.entrySet().forEach(parameter -> typedQuery.setParameter(parameter.getKey(), parameter.getValue()));
 	}
@@ -1816,18 +3366,133 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		setMappedParameters(typedQuery, mappedParameters);
 	}
 
-	private <T extends E> PartialResultList<T> executeQuery(PageBuilder<T> pageBuilder, TypedQuery<T> entityQuery, TypedQuery<Long> countQuery) {
+	private static int join(CompletableFuture<Integer> forkedCountQuery) {
+		try {
+			return forkedCountQuery.join();
+		}
+		catch (CompletionException e) {
+			throw (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : e;
+		}
+	}
+
+	private int getEstimatedTotalNumberOfResults(TypedQuery<Long> countQuery) {
+		return getEstimatedTotalNumberOfResults(countQuery, -1);
+	}
+
+	private int getEstimatedTotalNumberOfResults(TypedQuery<Long> countQuery, int estimatedRowCount) {
+		return (countQuery != null) ? executeCountQuery(provider, entityType, countQuery) : estimatedRowCount;
+	}
+
+	private static int executeCountQuery(Provider provider, Class<?> entityType, TypedQuery<Long> countQuery) {
+		int count = countQuery.getSingleResult().intValue();
+		PageStatements.record(provider, entityType, countQuery);
+		return count;
+	}
+
+	private <T> List<T> getPageResultList(TypedQuery<T> pageQuery) {
+		List<T> resultList = pageQuery.getResultList();
+		PageStatements.record(provider, entityType, pageQuery);
+		return resultList;
+	}
+
+	private <T extends E> PagedResultList<T> executeQuery(PageBuilder<T> pageBuilder, List<T> entities, int estimatedTotalNumberOfResults) {
 		Page page = pageBuilder.getPage();
-		List<T> entities = entityQuery.getResultList();
+		boolean reversed = pageBuilder.canBuildValueBasedPagingPredicate() && page.isReversed();
+		boolean probed = isProbed(page) && entities.size() > page.getLimit();
+
+		if (probed) {
+			entities = new ArrayList<>(entities.subList(0, page.getLimit()));
+		}
+
+		if (reversed) {
+			List<T> reversedEntities = new ArrayList<>(entities);
+			Collections.reverse(reversedEntities);
+			entities = reversedEntities;
+		}
+
+		boolean hasNext;
+
+		if (reversed) {
+			hasNext = true; // The page was obtained from the cursor of a next page.
+		}
+		else if (isProbed(page)) {
+			hasNext = probed;
+		}
+		else if (estimatedTotalNumberOfResults >= 0) {
+			hasNext = page.getOffset() + entities.size() < estimatedTotalNumberOfResults;
+		}
+		else {
+			hasNext = page.getLimit() != MAX_VALUE && entities.size() == page.getLimit();
+		}
+
+		List<String> firstValues = entities.isEmpty() ? null : getCursorValues(pageBuilder, entities.get(0));
+		List<String> lastValues = entities.isEmpty() ? null : getCursorValues(pageBuilder, entities.get(entities.size() - 1));
+		return new PagedResultList<>(entities, page, estimatedTotalNumberOfResults, hasNext, firstValues, lastValues);
+	}
+
+	private static boolean isProbed(Page page) {
+		return page.isProbeNext() && page.getLimit() != MAX_VALUE;
+	}
+
+	private <T extends E> boolean shouldBuildWindowedCount(PageBuilder<T> pageBuilder) {
+		return isWindowedCountEnabled()
+			&& (getProvider() == HIBERNATE || getProvider() == ECLIPSELINK)
+			&& WINDOW_FUNCTION_MAPPINGS.computeIfAbsent(entityType, this::computeWindowFunctionMapping)
+			&& pageBuilder.getResultType() == entityType
+			&& !pageBuilder.canBuildValueBasedPagingPredicate(); // The window would otherwise only count the entities after the last one.
+	}
+
+	private <T extends E> boolean shouldBuildDeferredJoin(PageBuilder<T> pageBuilder) {
+		Page page = pageBuilder.getPage();
+
+		if (FALSE.equals(page.getDeferredJoin()) || (!arrayBindable && (isProbed(page) ? page.getLimit() + 1 : page.getLimit()) > getMaxInClauseSize())) {
+			return false;
+		}
+
+		if (hasPluralFetches(pageBuilder) && (page.getOffset() > 0 || page.getLimit() != MAX_VALUE)) {
+			return true; // Otherwise the range would be applied on the joined rows, or in case of Hibernate even in memory.
+		}
+
+		if (pageBuilder.canBuildValueBasedPagingPredicate()) {
+			return false;
+		}
+
+		return TRUE.equals(page.getDeferredJoin()) || page.getOffset() >= getDeferredJoinOffsetThreshold();
+	}
+
+	private <T extends E> boolean hasPluralFetches(PageBuilder<T> pageBuilder) {
+		return pageBuilder.getFetchFields() != null && Stream.of(pageBuilder.getFetchFields())
+			.anyMatch(fetchField -> elementCollections.contains(fetchField) || oneToManys.test(fetchField + '.'));
+	}
+
+	private <T extends E> List<T> getDeferredResultList(PageBuilder<T> pageBuilder, TypedQuery<Object[]> idQuery) {
+		List<Object> ids = getPageResultList(idQuery).stream().map(row -> row[0]).distinct().collect(toList());
+
+		if (ids.isEmpty()) {
+			return emptyList();
+		}
 
-		if (pageBuilder.canBuildValueBasedPagingPredicate() && page.isReversed()) {
-			List<T> reversed = new ArrayList<>(entities);
-			Collections.reverse(reversed);
-			entities = reversed;
+		Page.Builder idsPageBuilder = Page.with().deferredJoin(false).allMatch(singletonMap(ID, ids)); // The IDs must not be deferred again.
+		pageBuilder.getPage().getOrdering().forEach(idsPageBuilder::orderBy);
+		Page idsPage = idsPageBuilder.build();
+		List<T> entities = new ArrayList<>(executePage(new PageBuilder<>(idsPage, pageBuilder.isCacheable(), pageBuilder.getResultType(), pageBuilder.getQueryBuilder(), pageBuilder.getFetchFields(), pageBuilder.getFetchSize()), false));
+		Map<Object, Integer> positions = range(0, ids.size()).boxed().collect(toMap(ids::get, identity()));
+		entities.sort(comparing(entity -> positions.get(entity.getId())));
+		return entities;
+	}
+
+	private <T extends E> List<String> getCursorValues(PageBuilder<T> pageBuilder, T entity) {
+		if (pageBuilder.getResultType() != entityType) {
+			return null; // Value based paging is not applicable on DTOs, so the cursor will only hold the offset.
 		}
 
-		int estimatedTotalNumberOfResults = (countQuery != null) ? countQuery.getSingleResult().intValue() : -1;
-		return new PartialResultList<>(entities, page.getOffset(), estimatedTotalNumberOfResults);
+		try {
+			return pageBuilder.getPage().getOrdering().keySet().stream().map(field -> CursorValues.format(invokeGetter(entity, field))).collect(toList());
+		}
+		catch (RuntimeException e) {
+			logger.log(FINER, e, () -> format(LOG_FINER_CURSOR_VALUES_UNAVAILABLE, pageBuilder.getPage().getOrdering().keySet()));
+			return null; // Ordering contains a field which is not a property of the entity, e.g. an aggregated field.
+		}
 	}
 
 
@@ -1861,6 +3526,7 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 			boolean orderingContainsAggregatedFields = aggregatedFields.removeAll(pageBuilder.getPage().getOrdering().keySet());
 			pageBuilder.shouldBuildCountSubquery(true); // Normally, building of count subquery is skipped for performance, but when there's a custom mapping, we cannot reliably determine if custom criteria is used, so count subquery building cannot be reliably skipped.
 			pageBuilder.canBuildValueBasedPagingPredicate(getProvider() != HIBERNATE || !orderingContainsAggregatedFields); // Value based paging cannot be used in Hibernate if ordering contains aggregated fields, because Hibernate may return a cartesian product and apply firstResult/maxResults in memory.
+			pageBuilder.canBuildDeferredJoin(paths.containsKey(ID)); // Deferred join cannot restore the order of the selected IDs when the mapping doesn't select the ID.
 			return new MappedPathResolver(root, paths, ELEMENT_COLLECTION_MAPPINGS.get(entityType), MANY_OR_ONE_TO_ONE_MAPPINGS.get(entityType));
 		}
 		else if (pageBuilder.getResultType() == entityType) {
@@ -1886,7 +3552,7 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		}
 
 		if (hasJoins || page.getLimit() != MAX_VALUE) {
-			query.setMaxResults(page.getLimit());
+			query.setMaxResults(isProbed(page) ? page.getLimit() + 1 : page.getLimit());
 		}
 
 		if (hasJoins && root instanceof EclipseLinkRoot) {
@@ -1894,6 +3560,22 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		}
 	}
 
+	private static void buildFetchSize(Provider provider, int fetchSize, Query query) {
+		if (fetchSize <= 0) {
+			return;
+		}
+
+		if (provider == HIBERNATE) {
+			query.setHint(QUERY_HINT_HIBERNATE_FETCH_SIZE, fetchSize);
+		}
+		else if (provider == ECLIPSELINK) {
+			query.setHint(QUERY_HINT_ECLIPSELINK_FETCH_SIZE, fetchSize);
+		}
+		else if (provider == OPENJPA) {
+			query.setHint(QUERY_HINT_OPENJPA_FETCH_SIZE, fetchSize);
+		}
+	}
+
 
 	// Sorting actions ------------------------------------------------------------------------------------------------
 
@@ -1931,8 +3613,8 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	private <T extends E> Map<String, Object> buildRestrictions(PageBuilder<T> pageBuilder, AbstractQuery<T> query, CriteriaBuilder criteriaBuilder, PathResolver pathResolver) {
 		Page page = pageBuilder.getPage();
 		Map<String, Object> parameters = new HashMap<>(page.getRequiredCriteria().size() + page.getOptionalCriteria().size());
-		List<Predicate> requiredPredicates = buildPredicates(page.getRequiredCriteria(), query, criteriaBuilder, pathResolver, parameters);
-		List<Predicate> optionalPredicates = buildPredicates(page.getOptionalCriteria(), query, criteriaBuilder, pathResolver, parameters);
+		List<Predicate> requiredPredicates = buildPredicates(page.getRequiredCriteria(), REQUIRED_CRITERIA, query, criteriaBuilder, pathResolver, parameters);
+		List<Predicate> optionalPredicates = buildPredicates(page.getOptionalCriteria(), OPTIONAL_CRITERIA, query, criteriaBuilder, pathResolver, parameters);
 		Predicate restriction = null;
 
 		if (!optionalPredicates.isEmpty()) {
@@ -1979,19 +3661,17 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	}
 
 	@SuppressWarnings("unchecked")
-	private <T extends E, V extends Comparable<V>> Predicate buildValueBasedPagingPredicate(Page page, CriteriaBuilder criteriaBuilder, PathResolver pathResolver, Map<String, Object> parameters) {
+	private <V extends Comparable<V>> Predicate buildValueBasedPagingPredicate(Page page, CriteriaBuilder criteriaBuilder, PathResolver pathResolver, Map<String, Object> parameters) {
 		// Value based paging https://blog.novatec-gmbh.de/art-pagination-offset-vs-value-based-paging/ is on large offsets much faster than offset based paging.
 		// (orderByField1 > ?1) OR (orderByField1 = ?1 AND orderByField2 > ?2) OR (orderByField1 = ?1 AND orderByField2 = ?2 AND orderByField3 > ?3) [...]
 
 		List<Predicate> predicates = new ArrayList<>(page.getOrdering().size());
 		Map<Expression<V>, ParameterExpression<V>> orderByFields = new HashMap<>();
-		T last = (T) page.getLast();
-
 		for (Entry<String, Boolean> order : page.getOrdering().entrySet()) {
 			String field = order.getKey();
-			V value = invokeGetter(last, field);
 			Expression<V> path = (Expression<V>) pathResolver.get(field);
-			ParameterExpression<V> parameter = new UncheckedParameterBuilder(field, criteriaBuilder, parameters).create(value);
+			V value = (V) ((page.getLast() != null) ? invokeGetter(page.getLast(), field) : CursorValues.parse(page.getCursorValues().get(field), ID.equals(field) ? identifierType : path.getJavaType()));
+			ParameterExpression<V> parameter = new UncheckedParameterBuilder(field, PAGING_CRITERIA, criteriaBuilder, parameters).create(value);
 			Predicate predicate = order.getValue() ^ page.isReversed() ? criteriaBuilder.greaterThan(path, parameter) : criteriaBuilder.lessThan(path, parameter);
 
 			for (Entry<Expression<V>, ParameterExpression<V>> previousOrderByField : orderByFields.entrySet()) {
@@ -2007,18 +3687,18 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		return criteriaBuilder.or(toArray(predicates));
 	}
 
-	private <T extends E> List<Predicate> buildPredicates(Map<String, Object> criteria, AbstractQuery<T> query, CriteriaBuilder criteriaBuilder, PathResolver pathResolver, Map<String, Object> parameters) {
-		return stream(criteria)
-			.map(parameter -> buildPredicate(parameter, query, criteriaBuilder, pathResolver, parameters))
+	private <T extends E> List<Predicate> buildPredicates(Map<String, Object> criteria, char group, AbstractQuery<T> query, CriteriaBuilder criteriaBuilder, PathResolver pathResolver, Map<String, Object> parameters) {
+		return stream(new TreeMap<>(criteria)) // Sorted, so that the same criteria always produce the same predicates in the same order.
+			.map(parameter -> buildPredicate(parameter, group, query, criteriaBuilder, pathResolver, parameters))
 			.filter(Objects::nonNull)
 			.collect(toList());
 	}
 
-	private <T extends E> Predicate buildPredicate(Entry<String, Object> parameter, AbstractQuery<T> query, CriteriaBuilder criteriaBuilder, PathResolver pathResolver, Map<String, Object> parameters) {
+	private <T extends E> Predicate buildPredicate(Entry<String, Object> parameter, char group, AbstractQuery<T> query, CriteriaBuilder criteriaBuilder, PathResolver pathResolver, Map<String, Object> parameters) {
 		String field = parameter.getKey();
 		Expression<?> path = pathResolver.get(elementCollections.contains(field) ? pathResolver.join(field) : field);
 		Class<?> type = ID.equals(field) ? identifierType : path.getJavaType();
-		return buildTypedPredicate(path, type, field,  parameter.getValue(), query, criteriaBuilder, pathResolver, new UncheckedParameterBuilder(field, criteriaBuilder, parameters));
+		return buildTypedPredicate(path, type, field,  parameter.getValue(), query, criteriaBuilder, pathResolver, new UncheckedParameterBuilder(field, group, criteriaBuilder, parameters));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -2090,17 +3770,17 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 	}
 
 	private Predicate buildInPredicate(Alias alias, Expression<?> path, Class<?> type, Object value, ParameterBuilder parameterBuilder) {
-		List<Expression<?>> in = stream(value)
+		List<Object> values = stream(value)
 			.map(item -> createElementCollectionCriteria(type, item).getValue())
 			.filter(Objects::nonNull)
-			.map(parameterBuilder::create)
 			.collect(toList());
 
-		if (in.isEmpty()) {
+		if (values.isEmpty()) {
 			throw new IllegalArgumentException(value.toString());
 		}
 
-		alias.in(in.size());
+		alias.in(values.size());
+		List<Expression<?>> in = padInClause(values, getMaxInClauseSize()).stream().map(parameterBuilder::create).collect(toList());
 		return path.in(in.toArray(new Expression[in.size()]));
 	}
 
@@ -2127,7 +3807,13 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 			fieldPath = path;
 		}
 
-		List<Predicate> predicates = stream(value)
+		List<Object> items = stream(value).collect(toList());
+
+		if (subquery == null && arrayBindable && Numeric.is(type) && items.stream().allMatch(item -> item != null && !(item instanceof Criteria))) {
+			return buildAnyPredicate(path, type, field, items, criteriaBuilder, parameterBuilder);
+		}
+
+		List<Predicate> predicates = (subquery == null ? padInClause(items, getMaxInClauseSize()) : items).stream() // Subquery compares against actual count, so don't pad it.
 			.map(item -> elementCollectionField
 					? createElementCollectionCriteria(type, item).build(fieldPath, criteriaBuilder, parameterBuilder)
 					: buildTypedPredicate(fieldPath, type, field, item, query, criteriaBuilder, pathResolver, parameterBuilder))
@@ -2149,6 +3835,28 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		return predicate;
 	}
 
+	@SuppressWarnings("unchecked")
+	private Predicate buildAnyPredicate(Expression<?> path, Class<?> type, String field, List<Object> items, CriteriaBuilder criteriaBuilder, ParameterBuilder parameterBuilder) {
+		List<Number> values = new ArrayList<>(items.size());
+
+		for (Object item : items) {
+			try {
+				values.add(Numeric.parse(item, (Class<Number>) type).getValue());
+			}
+			catch (IllegalArgumentException e) {
+				logger.log(WARNING, e, () -> format(LOG_WARNING_ILLEGAL_CRITERIA_VALUE, field, type, item, item.getClass()));
+			}
+		}
+
+		if (values.isEmpty()) {
+			throw new IllegalArgumentException(items.toString());
+		}
+
+		Object array = Array.newInstance(type, values.size());
+		range(0, values.size()).forEach(i -> Array.set(array, i, values.get(i)));
+		return criteriaBuilder.equal(path, criteriaBuilder.function("ANY", type, parameterBuilder.create(array)));
+	}
+
 	@SuppressWarnings("unchecked")
 	private Criteria<?> createElementCollectionCriteria(Class<?> type, Object value) {
 		return type.isEnum() ? Enumerated.parse(value, (Class<Enum<?>>) type) : IgnoreCase.value(value.toString());
@@ -2210,15 +3918,56 @@ public abstract class BaseEntityService<I extends Comparable<I> & Serializable,
 		}
 	}
 
+	/**
+	 * Pads given values to the next power of two, but not beyond given maximum size, by repeating the last value. This
+	 * bounds the amount of distinct statements generated for IN clauses of varying size, so that the query plan cache of
+	 * the JPA provider and the prepared statement cache of the database can be utilized.
+	 */
+	private static <T> List<T> padInClause(List<T> values, int maxSize) {
+		int size = values.size();
+		int paddedSize = (size <= 1) ? size : Math.min(Integer.highestOneBit(size - 1) << 1, Math.max(size, maxSize));
+
+		if (paddedSize == size) {
+			return values;
+		}
+
+		List<T> paddedValues = new ArrayList<>(paddedSize);
+		paddedValues.addAll(values);
+
+		while (paddedValues.size() < paddedSize) {
+			paddedValues.add(values.get(size - 1));
+		}
+
+		return paddedValues;
+	}
+
 	private static boolean hasJoins(From<?, ?> from) {
 		return !from.getJoins().isEmpty() || hasFetches(from);
 	}
 
+	private static boolean hasPluralJoins(From<?, ?> from) {
+		return from.getJoins().stream().anyMatch(join -> join.getAttribute().isCollection() || hasPluralJoins(join));
+	}
+
 	private static boolean hasFetches(From<?, ?> from) {
 		return from.getFetches().stream().anyMatch(fetch -> fetch instanceof Path)
 			|| (from instanceof EclipseLinkRoot && ((EclipseLinkRoot<?>) from).hasPostponedFetches());
 	}
 
+	private MappedQueryBuilder<E> buildFetches(String... fetchFields) {
+		return (builder, query, root) -> {
+			for (String fetchField : fetchFields) {
+				FetchParent<?, ?> fetchParent = root;
+
+				for (String attribute : fetchField.split("\\.")) {
+					fetchParent = fetchParent.fetch(attribute);
+				}
+			}
+
+			return null;
+		};
+	}
+
 	private static <T> T noop() {
 		return null;
 	}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.service;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.omnifaces.persistence.model.BaseEntity;
+
+/**
+ * Helper class of {@link BaseEntityService}.
+ * <p>
+ * The IDs which are requested with an equal key in the current thread are collected in a batch until the entity of any
+ * of them is actually obtained, whereupon the entities of all of them are obtained at once with the loader of the first
+ * request. The batch is then removed from the current thread and releases its loader. Subsequently requested IDs are
+ * collected in a new batch.
+ */
+class BatchLoader<I extends Comparable<I> & Serializable, E extends BaseEntity<I>> {
+
+	private static final ThreadLocal<Map<Object, BatchLoader<?, ?>>> BATCHES = new ThreadLocal<>();
+
+	private final Set<I> ids = new LinkedHashSet<>();
+	private Object key;
+	private Function<Set<I>, List<E>> loader;
+	private Map<I, E> entities;
+
+	private BatchLoader(Object key, Function<Set<I>, List<E>> loader) {
+		this.key = key;
+		this.loader = loader;
+	}
+
+	/**
+	 * Adds given ID to the current batch of given key and returns a handle to its entity. The given loader factory is
+	 * only invoked when a new batch is started, and the loader of a batch is invoked at most once, and only during the
+	 * first {@link Supplier#get()} of any of its handles.
+	 */
+	@SuppressWarnings("unchecked")
+	static <I extends Comparable<I> & Serializable, E extends BaseEntity<I>> Supplier<E> load(Object key, I id, Supplier<Function<Set<I>, List<E>>> loaderFactory) {
+		Map<Object, BatchLoader<?, ?>> batches = BATCHES.get();
+
+		if (batches == null) {
+			batches = new HashMap<>();
+			BATCHES.set(batches);
+		}
+
+		BatchLoader<I, E> batch = (BatchLoader<I, E>) batches.compute(key, (k, v) -> (v == null || v.isLoaded()) ? new BatchLoader<>(key, loaderFactory.get()) : v);
+		batch.add(id);
+		return () -> batch.get(id);
+	}
+
+	private synchronized boolean isLoaded() {
+		return entities != null;
+	}
+
+	private synchronized void add(I id) {
+		ids.add(id);
+	}
+
+	private synchronized E get(I id) {
+		if (entities == null) {
+			remove();
+			entities = loader.apply(ids).stream().collect(toMap(BaseEntity::getId, identity()));
+			loader = null;
+		}
+
+		return entities.get(id);
+	}
+
+	private void remove() {
+		Map<Object, BatchLoader<?, ?>> batches = BATCHES.get();
+
+		if (key != null && batches != null && batches.remove(key, this) && batches.isEmpty()) {
+			BATCHES.remove();
+		}
+
+		key = null;
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.service;
+
+import static java.util.Collections.emptyList;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Helper class of {@link BaseEntityService}.
+ */
+class ChunkedIterator<T> implements Iterator<T> {
+
+	@FunctionalInterface
+	interface ChunkLoader<T> {
+		List<T> load(T last, int offset, int limit);
+	}
+
+	private final int offset;
+	private final int limit;
+	private final int chunkSize;
+	private final ChunkLoader<T> chunkLoader;
+	private final Consumer<List<T>> chunkConsumer;
+
+	private List<T> chunk = emptyList();
+	private Iterator<T> iterator = chunk.iterator();
+	private T last;
+	private int count;
+	private boolean exhausted;
+
+	/**
+	 * Iterate over the results of given chunk loader, starting at given offset and stopping at given limit, whereby each
+	 * chunk is at most given chunk size. The given chunk consumer is invoked once all elements of a chunk are iterated.
+	 */
+	public ChunkedIterator(int offset, int limit, int chunkSize, ChunkLoader<T> chunkLoader, Consumer<List<T>> chunkConsumer) {
+		this.offset = offset;
+		this.limit = limit;
+		this.chunkSize = chunkSize;
+		this.chunkLoader = chunkLoader;
+		this.chunkConsumer = chunkConsumer;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (iterator.hasNext()) {
+			return true;
+		}
+
+		if (!chunk.isEmpty()) {
+			chunkConsumer.accept(chunk);
+		}
+
+		int size = exhausted ? 0 : Math.min(chunkSize, limit - count);
+		chunk = (size > 0) ? chunkLoader.load(last, offset + count, size) : emptyList();
+		exhausted = chunk.size() < size;
+		iterator = chunk.iterator();
+		return iterator.hasNext();
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		last = iterator.next();
+		count++;
+		return last;
+	}
+
+}
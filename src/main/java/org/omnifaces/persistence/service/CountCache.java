@@ -0,0 +1,189 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.service;
+
+import static javax.enterprise.event.TransactionPhase.AFTER_SUCCESS;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.enterprise.event.Observes;
+
+import org.omnifaces.persistence.event.Created;
+import org.omnifaces.persistence.event.Deleted;
+import org.omnifaces.persistence.model.BaseEntity;
+
+/**
+ * Helper class of {@link BaseEntityService}.
+ * <p>
+ * This is an LRU cache of counts per entity type. An entry expires after its time to live, but it may still be returned
+ * during its stale while revalidate duration while it is being refreshed. Entries beyond that are removed when obtained,
+ * and when the cache is full, then all such entries are removed before the least recently used entry is evicted. The
+ * cache of an entity type is invalidated by the {@link Created} and {@link Deleted} events and by
+ * {@link #invalidate(Class)}.
+ */
+class CountCache {
+
+	private static final int MAX_ENTRIES = 1000;
+	private static final Map<Class<?>, CountCache> CACHES = new ConcurrentHashMap<>();
+
+	private final Class<?> entityType;
+	private final Map<List<Object>, CachedCount> entries;
+	private long generation;
+
+	private CountCache(Class<?> entityType) {
+		this.entityType = entityType;
+		this.entries = new LinkedHashMap<List<Object>, CachedCount>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedCount> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+	}
+
+	/**
+	 * Returns the count cache of given entity type.
+	 */
+	static CountCache of(Class<?> entityType) {
+		return CACHES.computeIfAbsent(entityType, CountCache::new);
+	}
+
+	/**
+	 * Invalidate the count caches of given entity type and its super types.
+	 */
+	static void invalidate(Class<?> entityType) {
+		CACHES.values().stream().filter(cache -> cache.entityType.isAssignableFrom(entityType)).forEach(CountCache::clear);
+	}
+
+	/**
+	 * Returns the generation which must be obtained before the count is performed and then be passed to
+	 * {@link #put(List, int, long, long, long)}, so that a count which was performed during an invalidation is not
+	 * cached.
+	 */
+	synchronized long generation() {
+		return generation;
+	}
+
+	/**
+	 * Returns the cached count of given key, or <code>null</code> when absent or expired. When the cached count is
+	 * expired but still within its stale while revalidate duration and given refresh is not <code>null</code>, then
+	 * the stale cached count will be returned and the refresh will be started, unless it is already running.
+	 */
+	Integer get(List<Object> key, Supplier<CompletableFuture<Integer>> refresh) {
+		CachedCount cachedCount;
+		long generation;
+
+		synchronized (this) {
+			cachedCount = entries.get(key);
+
+			if (cachedCount == null) {
+				return null;
+			}
+
+			long now = System.currentTimeMillis();
+
+			if (now < cachedCount.expiry) {
+				return cachedCount.count;
+			}
+
+			if (now >= cachedCount.staleExpiry || refresh == null) {
+				entries.remove(key);
+				return null;
+			}
+
+			if (cachedCount.refreshing) {
+				return cachedCount.count;
+			}
+
+			cachedCount.refreshing = true;
+			generation = this.generation;
+		}
+
+		try {
+			refresh.get().whenComplete((count, exception) -> refreshed(key, cachedCount, (exception == null) ? count : null, generation));
+		}
+		catch (RuntimeException e) {
+			refreshed(key, cachedCount, null, generation);
+			throw e;
+		}
+
+		return cachedCount.count;
+	}
+
+	/**
+	 * Cache given count by given key during given time to live and given stale while revalidate duration, unless the
+	 * cache was invalidated since given generation.
+	 */
+	synchronized void put(List<Object> key, int count, long generation, long timeToLive, long staleWhileRevalidate) {
+		if (generation != this.generation) {
+			return;
+		}
+
+		if (entries.size() >= MAX_ENTRIES && !entries.containsKey(key)) {
+			long now = System.currentTimeMillis();
+			entries.values().removeIf(cachedCount -> now >= cachedCount.staleExpiry);
+		}
+
+		entries.put(key, new CachedCount(count, timeToLive, staleWhileRevalidate));
+	}
+
+	private synchronized void refreshed(List<Object> key, CachedCount cachedCount, Integer count, long generation) {
+		if (count != null && generation == this.generation && entries.get(key) == cachedCount) {
+			entries.put(key, new CachedCount(count, cachedCount.timeToLive, cachedCount.staleWhileRevalidate));
+		}
+		else {
+			cachedCount.refreshing = false;
+		}
+	}
+
+	private synchronized void clear() {
+		generation++;
+		entries.clear();
+	}
+
+	private static final class CachedCount {
+
+		private final int count;
+		private final long timeToLive;
+		private final long staleWhileRevalidate;
+		private final long expiry;
+		private final long staleExpiry;
+		private boolean refreshing;
+
+		private CachedCount(int count, long timeToLive, long staleWhileRevalidate) {
+			this.count = count;
+			this.timeToLive = timeToLive;
+			this.staleWhileRevalidate = staleWhileRevalidate;
+			this.expiry = System.currentTimeMillis() + timeToLive;
+			this.staleExpiry = expiry + staleWhileRevalidate;
+		}
+	}
+
+	static class Invalidator {
+
+		void onCreated(@Observes(during = AFTER_SUCCESS) @Created BaseEntity<?> entity) {
+			invalidate(entity.getClass());
+		}
+
+		void onDeleted(@Observes(during = AFTER_SUCCESS) @Deleted BaseEntity<?> entity) {
+			invalidate(entity.getClass());
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.omnifaces.persistence.model.dto.Page;
+
+/**
+ * Helper class of {@link BaseEntityService}.
+ * Converts ordering values of an entity from and to the raw values of a {@link Page} cursor.
+ */
+final class CursorValues {
+
+	private static final String ERROR_UNSUPPORTED_TYPE = "Cursor value of type %s is not supported.";
+	private static final String ERROR_ILLEGAL_VALUE = "Cursor value '%s' is not a valid %s.";
+
+	private static final Map<Class<?>, Function<String, Object>> PARSERS = new HashMap<>();
+
+	static {
+		register(String.class, value -> value);
+		register(Character.class, value -> value.charAt(0), char.class);
+		register(Boolean.class, Boolean::valueOf, boolean.class);
+		register(Byte.class, Byte::valueOf, byte.class);
+		register(Short.class, Short::valueOf, short.class);
+		register(Integer.class, Integer::valueOf, int.class);
+		register(Long.class, Long::valueOf, long.class);
+		register(Float.class, Float::valueOf, float.class);
+		register(Double.class, Double::valueOf, double.class);
+		register(BigInteger.class, BigInteger::new);
+		register(BigDecimal.class, BigDecimal::new);
+		register(UUID.class, UUID::fromString);
+		register(Instant.class, Instant::parse);
+		register(LocalDate.class, LocalDate::parse);
+		register(LocalDateTime.class, LocalDateTime::parse);
+		register(LocalTime.class, LocalTime::parse);
+		register(OffsetDateTime.class, OffsetDateTime::parse);
+		register(OffsetTime.class, OffsetTime::parse);
+		register(ZonedDateTime.class, ZonedDateTime::parse);
+		register(Date.class, value -> Date.from(Instant.parse(value)));
+		register(Timestamp.class, value -> Timestamp.from(Instant.parse(value)));
+		register(java.sql.Date.class, value -> new java.sql.Date(Instant.parse(value).toEpochMilli()));
+		register(Time.class, value -> new Time(Instant.parse(value).toEpochMilli()));
+	}
+
+	private CursorValues() {
+		throw new AssertionError();
+	}
+
+	private static void register(Class<?> type, Function<String, Object> parser, Class<?>... primitiveTypes) {
+		PARSERS.put(type, parser);
+
+		for (Class<?> primitiveType : primitiveTypes) {
+			PARSERS.put(primitiveType, parser);
+		}
+	}
+
+	/**
+	 * Format the given ordering value into a raw cursor value. Dates are formatted as instant in order to retain
+	 * their precision regardless of their actual subclass.
+	 */
+	public static String format(Object value) {
+		if (value == null) {
+			return null;
+		}
+		else if (value instanceof Enum) {
+			return ((Enum<?>) value).name();
+		}
+		else if (value instanceof Timestamp) {
+			return ((Timestamp) value).toInstant().toString();
+		}
+		else if (value instanceof Date) {
+			return Instant.ofEpochMilli(((Date) value).getTime()).toString();
+		}
+
+		return value.toString();
+	}
+
+	/**
+	 * Parse the given raw cursor value into an ordering value of the given type.
+	 * @throws IllegalArgumentException When the type is not supported or the value is not valid for the type.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static Object parse(String value, Class<?> type) {
+		if (value == null) {
+			return null;
+		}
+
+		Function<String, Object> parser = type.isEnum() ? enumValue -> Enum.valueOf((Class<Enum>) type, enumValue) : PARSERS.get(type);
+
+		if (parser == null) {
+			throw new IllegalArgumentException(String.format(ERROR_UNSUPPORTED_TYPE, type));
+		}
+
+		try {
+			return parser.apply(value);
+		}
+		catch (RuntimeException e) {
+			throw new IllegalArgumentException(String.format(ERROR_ILLEGAL_VALUE, value, type), e);
+		}
+	}
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.service;
+
+import static javax.enterprise.event.TransactionPhase.AFTER_SUCCESS;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.enterprise.event.Observes;
+
+import org.omnifaces.persistence.event.Created;
+import org.omnifaces.persistence.event.Deleted;
+import org.omnifaces.persistence.event.Updated;
+import org.omnifaces.persistence.model.BaseEntity;
+
+/**
+ * Helper class of {@link BaseEntityService}.
+ * <p>
+ * This is a read-through LRU cache of entity snapshots by ID per entity type. Each hit and each cached miss returns a
+ * fresh copy restored from the snapshot, so callers never share instances. An entity is cached during the given time
+ * to live, and an absent entity during the given negative time to live. The entry of an entity is invalidated by the
+ * {@link Created}, {@link Updated} and {@link Deleted} events after the transaction has successfully completed, and
+ * the whole cache of an entity type is invalidated by {@link #invalidate(Class)}.
+ */
+class NearCache {
+
+	private static final Map<Class<?>, NearCache> CACHES = new ConcurrentHashMap<>();
+
+	private final Class<?> entityType;
+	private final Map<Object, CachedEntity> entries;
+	private long generation;
+
+	private NearCache(Class<?> entityType, int maxSize) {
+		this.entityType = entityType;
+		this.entries = new LinkedHashMap<Object, CachedEntity>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Object, CachedEntity> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the near cache of given entity type having given maximum size.
+	 */
+	static NearCache of(Class<?> entityType, int maxSize) {
+		return CACHES.computeIfAbsent(entityType, k -> new NearCache(entityType, maxSize));
+	}
+
+	/**
+	 * Invalidate the whole near caches of given entity type and its super types.
+	 */
+	static void invalidate(Class<?> entityType) {
+		CACHES.values().stream().filter(cache -> cache.entityType.isAssignableFrom(entityType)).forEach(cache -> cache.remove(null));
+	}
+
+	/**
+	 * Invalidate the entry of given entity in the near caches of its entity type and its super types. When the entity
+	 * has no ID anymore, such as after deletion, then the whole near caches are invalidated.
+	 */
+	static void invalidate(BaseEntity<?> entity) {
+		Object id = entity.getId();
+
+		if (id == null) {
+			invalidate(entity.getClass());
+		}
+		else {
+			CACHES.values().stream().filter(cache -> cache.entityType.isInstance(entity)).forEach(cache -> cache.remove(id));
+		}
+	}
+
+	/**
+	 * Returns a copy of the cached entity of given ID. On a miss, the given loader will be invoked and a copy of its
+	 * result will be returned and cached, unless the entry was invalidated in the meanwhile. When the entity cannot be
+	 * serialized, then the result of the loader is returned as is and not cached.
+	 */
+	<E> E get(Object id, long timeToLive, long negativeTimeToLive, Supplier<E> loader) {
+		long generation;
+
+		synchronized (this) {
+			CachedEntity cachedEntity = entries.get(id);
+
+			if (cachedEntity != null && !cachedEntity.isExpired()) {
+				try {
+					return (cachedEntity.snapshot != null) ? Snapshots.restore(cachedEntity.snapshot) : null;
+				}
+				catch (IOException | ClassNotFoundException e) {
+					entries.remove(id);
+				}
+			}
+
+			generation = this.generation;
+		}
+
+		E entity = loader.get();
+		byte[] snapshot = null;
+
+		if (entity != null) {
+			try {
+				snapshot = Snapshots.take(entity);
+				entity = Snapshots.restore(snapshot);
+			}
+			catch (IOException | ClassNotFoundException e) {
+				return entity; // Not cacheable.
+			}
+		}
+
+		long ttl = (entity != null) ? timeToLive : negativeTimeToLive;
+
+		if (ttl > 0) {
+			CachedEntity cachedEntity = new CachedEntity(snapshot, System.currentTimeMillis() + ttl);
+
+			synchronized (this) {
+				if (generation == this.generation) {
+					entries.put(id, cachedEntity);
+				}
+			}
+		}
+
+		return entity;
+	}
+
+	private synchronized void remove(Object id) {
+		generation++;
+
+		if (id != null) {
+			entries.remove(id);
+		}
+		else {
+			entries.clear();
+		}
+	}
+
+	private static final class CachedEntity {
+
+		private final byte[] snapshot;
+		private final long expiry;
+
+		private CachedEntity(byte[] snapshot, long expiry) {
+			this.snapshot = snapshot;
+			this.expiry = expiry;
+		}
+
+		private boolean isExpired() {
+			return System.currentTimeMillis() >= expiry;
+		}
+	}
+
+	static class Invalidator {
+
+		void onCreated(@Observes(during = AFTER_SUCCESS) @Created BaseEntity<?> entity) {
+			invalidate(entity);
+		}
+
+		void onUpdated(@Observes(during = AFTER_SUCCESS) @Updated BaseEntity<?> entity) {
+			invalidate(entity);
+		}
+
+		void onDeleted(@Observes(during = AFTER_SUCCESS) @Deleted BaseEntity<?> entity) {
+			invalidate(entity);
+		}
+	}
+
+}
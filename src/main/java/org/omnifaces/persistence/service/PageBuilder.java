@@ -24,16 +24,25 @@ class PageBuilder<T> {
 	private final boolean cacheable;
 	private final Class<T> resultType;
 	private final MappedQueryBuilder<T> queryBuilder;
+	private final String[] fetchFields;
+	private final int fetchSize;
 
 	private boolean shouldBuildCountSubquery;
 	private boolean canBuildValueBasedPagingPredicate;
+	private boolean canBuildDeferredJoin = true;
 
 	public PageBuilder(Page page, boolean cacheable, Class<T> resultType, MappedQueryBuilder<T> queryBuilder) {
+		this(page, cacheable, resultType, queryBuilder, null, 0);
+	}
+
+	public PageBuilder(Page page, boolean cacheable, Class<T> resultType, MappedQueryBuilder<T> queryBuilder, String[] fetchFields, int fetchSize) {
 		this.page = page;
 		this.cacheable = cacheable;
 		this.resultType = resultType;
 		this.queryBuilder = queryBuilder;
-		this.canBuildValueBasedPagingPredicate = page.getLast() != null && page.getOffset() > 0;
+		this.fetchFields = fetchFields;
+		this.fetchSize = fetchSize;
+		this.canBuildValueBasedPagingPredicate = (page.getLast() != null || !page.getCursorValues().isEmpty()) && page.getOffset() > 0;
 	}
 
 	public void shouldBuildCountSubquery(boolean yes) {
@@ -52,6 +61,14 @@ class PageBuilder<T> {
 		return canBuildValueBasedPagingPredicate;
 	}
 
+	public void canBuildDeferredJoin(boolean yes) {
+		canBuildDeferredJoin &= yes;
+	}
+
+	public boolean canBuildDeferredJoin() {
+		return canBuildDeferredJoin;
+	}
+
 	public Page getPage() {
 		return page;
 	}
@@ -68,4 +85,12 @@ class PageBuilder<T> {
 		return queryBuilder;
 	}
 
+	public String[] getFetchFields() {
+		return fetchFields;
+	}
+
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.service;
+
+import static javax.enterprise.event.TransactionPhase.AFTER_SUCCESS;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.enterprise.event.Observes;
+
+import org.omnifaces.persistence.event.Created;
+import org.omnifaces.persistence.event.Deleted;
+import org.omnifaces.persistence.event.Updated;
+import org.omnifaces.persistence.model.BaseEntity;
+import org.omnifaces.persistence.model.dto.PagedResultList;
+
+/**
+ * Helper class of {@link BaseEntityService}.
+ * <p>
+ * This is a segmented LRU cache of page results per service, so that a page which is obtained only once can't evict
+ * pages which are obtained repeatedly. New pages enter the probationary segment, and pages which are obtained once
+ * again are promoted to the protected segment. The least recently used page of the protected segment is demoted back
+ * to the probationary segment when the protected segment is full, and the least recently used page of the probationary
+ * segment is evicted when the cache is full. The pages are stored as snapshots which expire after the given time to
+ * live, so every hit returns a fresh copy which is not shared with any persistence context. The caches are invalidated
+ * per entity type by the {@link Created}, {@link Updated} and {@link Deleted} events once the transaction has
+ * successfully completed, and by {@link #invalidate(Class)}.
+ */
+class PageCache {
+
+	private static final Map<Class<?>, PageCache> CACHES = new ConcurrentHashMap<>();
+	private static final int PROTECTED_PERCENTAGE = 80;
+
+	private final Class<?> entityType;
+	private final int maxSize;
+	private final int maxProtectedSize;
+	private final LinkedHashMap<List<Object>, CachedPage> probationarySegment = new LinkedHashMap<>(16, 0.75f, true);
+	private final LinkedHashMap<List<Object>, CachedPage> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+	private long generation;
+
+	private PageCache(Class<?> entityType, int maxSize) {
+		this.entityType = entityType;
+		this.maxSize = maxSize;
+		this.maxProtectedSize = maxSize * PROTECTED_PERCENTAGE / 100;
+	}
+
+	/**
+	 * Returns the page cache of given service type for given entity type having given maximum size.
+	 */
+	static PageCache of(Class<?> serviceType, Class<?> entityType, int maxSize) {
+		return CACHES.computeIfAbsent(serviceType, k -> new PageCache(entityType, maxSize));
+	}
+
+	/**
+	 * Invalidate all page caches of given entity type and its super types.
+	 */
+	static void invalidate(Class<?> entityType) {
+		CACHES.values().stream().filter(cache -> cache.entityType.isAssignableFrom(entityType)).forEach(PageCache::clear);
+	}
+
+	/**
+	 * Returns the generation which must be obtained before the page is obtained and then be passed to
+	 * {@link #put(List, PagedResultList, long, long)}, so that a page which was obtained during an invalidation is not
+	 * cached.
+	 */
+	synchronized long generation() {
+		return generation;
+	}
+
+	/**
+	 * Returns a copy of the cached page of given key, or <code>null</code> when absent or expired.
+	 */
+	<T> PagedResultList<T> get(List<Object> key) {
+		byte[] snapshot = getSnapshot(key);
+
+		try {
+			return (snapshot != null) ? Snapshots.restore(snapshot) : null;
+		}
+		catch (IOException | ClassNotFoundException e) {
+			return null;
+		}
+	}
+
+	private synchronized byte[] getSnapshot(List<Object> key) {
+		CachedPage cachedPage = protectedSegment.get(key);
+
+		if (cachedPage == null) {
+			cachedPage = probationarySegment.remove(key);
+
+			if (cachedPage != null && !cachedPage.isExpired()) {
+				protectedSegment.put(key, cachedPage);
+
+				if (protectedSegment.size() > maxProtectedSize) {
+					Iterator<Entry<List<Object>, CachedPage>> leastRecentlyUsed = protectedSegment.entrySet().iterator();
+					Entry<List<Object>, CachedPage> demoted = leastRecentlyUsed.next();
+					leastRecentlyUsed.remove();
+					probationarySegment.put(demoted.getKey(), demoted.getValue());
+				}
+			}
+		}
+		else if (cachedPage.isExpired()) {
+			protectedSegment.remove(key);
+		}
+
+		return (cachedPage != null && !cachedPage.isExpired()) ? cachedPage.snapshot : null;
+	}
+
+	/**
+	 * Cache a snapshot of given page by given key during given time to live, unless the cache was invalidated since
+	 * given generation or the page cannot be serialized.
+	 */
+	void put(List<Object> key, PagedResultList<?> resultList, long generation, long timeToLive) {
+		CachedPage cachedPage;
+
+		try {
+			cachedPage = new CachedPage(Snapshots.take(resultList), System.currentTimeMillis() + timeToLive);
+		}
+		catch (IOException e) {
+			return; // Not cacheable.
+		}
+
+		synchronized (this) {
+			if (generation != this.generation || protectedSegment.containsKey(key)) {
+				return;
+			}
+
+			probationarySegment.put(key, cachedPage);
+
+			if (probationarySegment.size() + protectedSegment.size() > maxSize) {
+				Iterator<List<Object>> leastRecentlyUsed = probationarySegment.keySet().iterator();
+				leastRecentlyUsed.next();
+				leastRecentlyUsed.remove();
+			}
+		}
+	}
+
+	private synchronized void clear() {
+		generation++;
+		probationarySegment.clear();
+		protectedSegment.clear();
+	}
+
+	private static final class CachedPage {
+
+		private final byte[] snapshot;
+		private final long expiry;
+
+		private CachedPage(byte[] snapshot, long expiry) {
+			this.snapshot = snapshot;
+			this.expiry = expiry;
+		}
+
+		private boolean isExpired() {
+			return System.currentTimeMillis() >= expiry;
+		}
+	}
+
+	static class Invalidator {
+
+		void onCreated(@Observes(during = AFTER_SUCCESS) @Created BaseEntity<?> entity) {
+			invalidate(entity.getClass());
+		}
+
+		void onUpdated(@Observes(during = AFTER_SUCCESS) @Updated BaseEntity<?> entity) {
+			invalidate(entity.getClass());
+		}
+
+		void onDeleted(@Observes(during = AFTER_SUCCESS) @Deleted BaseEntity<?> entity) {
+			invalidate(entity.getClass());
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.service;
+
+import static java.lang.String.format;
+import static java.util.logging.Level.FINE;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import javax.persistence.Query;
+
+import org.omnifaces.persistence.Provider;
+
+/**
+ * Helper class of {@link BaseEntityService}.
+ * <p>
+ * This keeps track of the distinct statements which the JPA provider has generated for the page queries of each entity
+ * type, as obtained via {@link Provider#getQueryString(Query)} after the query has been executed. Only the hash codes
+ * of the statements are kept, at most {@link #MAX_STATEMENTS} per entity type, so the count saturates there.
+ */
+final class PageStatements {
+
+	private static final Logger logger = Logger.getLogger(BaseEntityService.class.getName());
+
+	private static final String LOG_FINE_NEW_PAGE_STATEMENT = "New page statement for %s: %s";
+	private static final int MAX_STATEMENTS = 10000;
+	private static final Map<Class<?>, Set<Integer>> STATEMENTS = new ConcurrentHashMap<>();
+
+	private PageStatements() {
+		throw new AssertionError();
+	}
+
+	/**
+	 * Record the statement of given executed page query of given entity type.
+	 */
+	static void record(Provider provider, Class<?> entityType, Query query) {
+		String statement = provider.getQueryString(query);
+
+		if (statement != null) {
+			Set<Integer> statements = STATEMENTS.computeIfAbsent(entityType, k -> ConcurrentHashMap.newKeySet());
+
+			if (statements.size() < MAX_STATEMENTS && statements.add(statement.hashCode())) {
+				logger.log(FINE, () -> format(LOG_FINE_NEW_PAGE_STATEMENT, entityType, statement));
+			}
+		}
+	}
+
+	/**
+	 * Returns the amount of distinct statements recorded so far for given entity type.
+	 */
+	static int count(Class<?> entityType) {
+		Set<Integer> statements = STATEMENTS.get(entityType);
+		return (statements != null) ? statements.size() : 0;
+	}
+
+}
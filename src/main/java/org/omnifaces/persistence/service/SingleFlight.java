@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.service;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Helper class of {@link BaseEntityService}.
+ * <p>
+ * The first caller of a key executes the query and takes a serialized snapshot of its result before returning it, and
+ * the concurrent callers of an equal key wait at most the given timeout for that snapshot and then each restore their
+ * own copy from it, so that they never share instances with the persistence context of the first caller, nor touch
+ * its result while the first caller is still using it. When the wait times out, or when the first caller fails, or
+ * when the result cannot be serialized, then the waiting callers execute the query on their own.
+ */
+final class SingleFlight {
+
+	private static final Map<List<Object>, CompletableFuture<byte[]>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+	private SingleFlight() {
+		throw new AssertionError();
+	}
+
+	static <T> T execute(List<Object> key, long timeout, Supplier<T> query) {
+		CompletableFuture<byte[]> flight = new CompletableFuture<>();
+		CompletableFuture<byte[]> existingFlight = IN_FLIGHT.putIfAbsent(key, flight);
+
+		if (existingFlight == null) {
+			try {
+				T result = query.get();
+				flight.complete(takeSnapshot(result));
+				return result;
+			}
+			catch (RuntimeException | Error e) {
+				flight.completeExceptionally(e);
+				throw e;
+			}
+			finally {
+				IN_FLIGHT.remove(key, flight);
+			}
+		}
+
+		try {
+			byte[] snapshot = existingFlight.get(timeout, MILLISECONDS);
+
+			if (snapshot != null) {
+				return Snapshots.restore(snapshot);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException | TimeoutException | IOException | ClassNotFoundException ignore) {
+			// Fall back to own query.
+		}
+
+		return query.get();
+	}
+
+	private static byte[] takeSnapshot(Object result) {
+		try {
+			return Snapshots.take(result);
+		}
+		catch (IOException ignore) {
+			return null; // Let the waiting callers fall back to their own query.
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+
+/**
+ * Helper class of {@link BaseEntityService}.
+ * <p>
+ * A snapshot is the serialized form of an object, so that every restored copy thereof is detached from the persistence
+ * context of the original object and from any other copy.
+ */
+final class Snapshots {
+
+	private Snapshots() {
+		throw new AssertionError();
+	}
+
+	static byte[] take(Object object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+			output.writeObject(object);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> T restore(byte[] snapshot) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream input = new ContextClassLoaderObjectInputStream(new ByteArrayInputStream(snapshot))) {
+			return (T) input.readObject();
+		}
+	}
+
+	private static final class ContextClassLoaderObjectInputStream extends ObjectInputStream {
+
+		private ContextClassLoaderObjectInputStream(InputStream input) throws IOException {
+			super(input);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass type) throws IOException, ClassNotFoundException {
+			try {
+				return Class.forName(type.getName(), false, Thread.currentThread().getContextClassLoader());
+			}
+			catch (ClassNotFoundException e) {
+				return super.resolveClass(type);
+			}
+		}
+	}
+
+}
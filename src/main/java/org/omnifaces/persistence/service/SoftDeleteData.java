@@ -82,6 +82,10 @@ class SoftDeleteData {
 		invokeMethod(entity, setterName, typeActive ? !deleted : deleted);
 	}
 
+	public boolean matchesWhereClause(BaseEntity<?> entity, boolean includeSoftDeleted) {
+		return !softDeletable || isSoftDeleted(entity) == includeSoftDeleted;
+	}
+
 	public String getWhereClause(boolean includeSoftDeleted) {
 		if (!softDeletable) {
 			return "";
@@ -90,6 +94,10 @@ class SoftDeleteData {
 		return (" WHERE e." + fieldName + (includeSoftDeleted ? "=" : "!=") + (typeActive ? "false": "true"));
 	}
 
+	public String getSetClause(boolean deleted) {
+		return (" SET e." + fieldName + "=" + (typeActive ? !deleted : deleted));
+	}
+
 	@Override
 	public String toString() {
 		return format("SoftDeleteData[softDeletable=%s, fieldName=%s, setterName=%s, typeActive=%s]", softDeletable, fieldName, setterName, typeActive);
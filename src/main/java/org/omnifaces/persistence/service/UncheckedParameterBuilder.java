@@ -21,23 +21,37 @@ import org.omnifaces.persistence.criteria.Criteria.ParameterBuilder;
 
 /**
  * Helper class of {@link BaseEntityService}.
+ * <p>
+ * The parameter names are derived from the field, the given group and the position of the parameter within the
+ * criterion, so that the same criteria always produce the same parameter names, regardless of the amount of parameters
+ * of the other criteria.
  */
 class UncheckedParameterBuilder implements ParameterBuilder {
 
 	private final String field;
+	private final char group;
 	private final CriteriaBuilder criteriaBuilder;
 	private final Map<String, Object> parameters;
+	private int index;
 
-	public UncheckedParameterBuilder(String field, CriteriaBuilder criteriaBuilder, Map<String, Object> parameters) {
-		this.field = field.replace('.', '$') + "_";
+	public UncheckedParameterBuilder(String field, char group, CriteriaBuilder criteriaBuilder, Map<String, Object> parameters) {
+		this.field = field;
+		this.group = group;
 		this.criteriaBuilder = criteriaBuilder;
 		this.parameters = parameters;
 	}
 
+	/**
+	 * Returns the name of the parameter at given position within the criterion of given field and group.
+	 */
+	static String getName(String field, char group, int index) {
+		return field.replace('.', '$') + "_" + group + index;
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> ParameterExpression<T> create(Object value) {
-		String name = field + parameters.size();
+		String name = getName(field, group, index++);
 		parameters.put(name, value);
 		Class<? extends Object> type = (value == null) ? Object.class : value.getClass();
 		return (ParameterExpression<T>) criteriaBuilder.parameter(type, name);
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.service;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
+import static java.util.stream.Collectors.toList;
+import static javax.persistence.EnumType.ORDINAL;
+import static javax.persistence.EnumType.STRING;
+import static javax.persistence.metamodel.Attribute.PersistentAttributeType.BASIC;
+import static org.omnifaces.utils.reflect.Reflections.accessField;
+import static org.omnifaces.utils.reflect.Reflections.invokeMethod;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.omnifaces.persistence.Provider;
+import org.omnifaces.persistence.model.BaseEntity;
+import org.omnifaces.persistence.model.EnumMapping;
+import org.omnifaces.persistence.model.Timestamped;
+import org.omnifaces.persistence.model.TimestampedBaseEntity;
+import org.omnifaces.persistence.model.TimestampedEntity;
+
+/**
+ * Helper class of {@link BaseEntityService}.
+ */
+class UpsertData {
+
+	private static final String CREATED = "created";
+
+	private final boolean upsertable;
+	private final boolean timestamped;
+	private final String idColumnName;
+	private final List<ColumnData> columns;
+	private final List<String> columnNames;
+	private final List<String> updateColumnNames;
+
+	/**
+	 * Computes the upsert data of given entity type. The column names are resolved from the mapping metadata of given
+	 * JPA provider. When it can't resolve the single column of any attribute, the entity type is not upsertable.
+	 */
+	public UpsertData(EntityType<?> entityType, Provider provider, EntityManagerFactory entityManagerFactory) {
+		Class<?> javaType = entityType.getJavaType();
+		List<ColumnData> columns = new ArrayList<>();
+		List<String> updateColumnNames = new ArrayList<>();
+		String idColumnName = null;
+		boolean upsertable = provider.isSingleTable(javaType) && entityType.hasSingleIdAttribute() && !entityType.hasVersionAttribute();
+		timestamped = TimestampedEntity.class.isAssignableFrom(javaType) || TimestampedBaseEntity.class.isAssignableFrom(javaType);
+
+		for (Attribute<?, ?> attribute : entityType.getAttributes()) {
+			if (!upsertable) {
+				break;
+			}
+
+			String columnName = isBasic(attribute) ? provider.getColumnName(entityManagerFactory, javaType, attribute.getName()) : null;
+			ColumnData column = (columnName != null) ? ColumnData.of(attribute, columnName) : null;
+
+			if (column == null) {
+				upsertable = false;
+			}
+			else if (((SingularAttribute<?, ?>) attribute).isId()) {
+				idColumnName = column.name;
+				columns.add(0, column);
+			}
+			else {
+				if (column.insertable) {
+					columns.add(column);
+				}
+
+				if (column.updatable && !(timestamped && CREATED.equals(attribute.getName()))) {
+					updateColumnNames.add(column.name);
+				}
+			}
+		}
+
+		this.upsertable = upsertable && idColumnName != null;
+		this.idColumnName = idColumnName;
+		this.columns = unmodifiableList(columns);
+		this.columnNames = unmodifiableList(columns.stream().map(column -> column.name).collect(toList()));
+		this.updateColumnNames = unmodifiableList(updateColumnNames);
+	}
+
+	private static boolean isBasic(Attribute<?, ?> attribute) {
+		return attribute.getPersistentAttributeType() == BASIC && !attribute.isCollection()
+			&& (attribute.getJavaMember() instanceof Field || attribute.getJavaMember() instanceof Method)
+			&& !((AnnotatedElement) attribute.getJavaMember()).isAnnotationPresent(Convert.class)
+			&& !(attribute.getJavaType().isEnum() && attribute.getJavaType().isAnnotationPresent(EnumMapping.class));
+	}
+
+	public boolean isUpsertable() {
+		return upsertable;
+	}
+
+	public String getIdColumnName() {
+		return idColumnName;
+	}
+
+	public List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	public List<String> getUpdateColumnNames() {
+		return updateColumnNames;
+	}
+
+	/**
+	 * Collect the column values of given entity into given parameters and return the SQL values in the order of
+	 * {@link #getColumnNames()} as positional parameter placeholders for them. A <code>null</code> value is inlined as
+	 * <code>NULL</code> literal, because not all JPA providers are capable of binding a <code>null</code> parameter of
+	 * an unknown type in a native query. When the entity is timestamped, then its timestamps will be adjusted first as
+	 * JPA lifecycle callbacks won't be invoked.
+	 */
+	public List<String> collectValues(BaseEntity<?> entity, List<Object> parameters) {
+		if (timestamped) {
+			Timestamped timestampedEntity = (Timestamped) entity;
+			Instant timestamp = Instant.now();
+
+			if (timestampedEntity.getCreated() == null) {
+				timestampedEntity.setCreated(timestamp);
+			}
+
+			timestampedEntity.setLastModified(timestamp);
+		}
+
+		return columns.stream().map(column -> {
+			Object value = column.getValue(entity);
+
+			if (value == null) {
+				return "NULL";
+			}
+
+			parameters.add(value);
+			return "?" + parameters.size();
+		}).collect(toList());
+	}
+
+	@Override
+	public String toString() {
+		return format("UpsertData[upsertable=%s, idColumnName=%s, columnNames=%s, updateColumnNames=%s]", upsertable, idColumnName, columnNames, updateColumnNames);
+	}
+
+	private static final class ColumnData {
+
+		private final Member member;
+		private final String name;
+		private final EnumType enumType;
+		private final boolean insertable;
+		private final boolean updatable;
+
+		private ColumnData(Member member, String name, EnumType enumType, boolean insertable, boolean updatable) {
+			this.member = member;
+			this.name = name;
+			this.enumType = enumType;
+			this.insertable = insertable;
+			this.updatable = updatable;
+		}
+
+		private static ColumnData of(Attribute<?, ?> attribute, String name) {
+			AnnotatedElement member = (AnnotatedElement) attribute.getJavaMember();
+			Column column = member.getAnnotation(Column.class);
+			Enumerated enumerated = member.getAnnotation(Enumerated.class);
+			EnumType enumType = (enumerated != null) ? enumerated.value() : ORDINAL;
+			return new ColumnData(attribute.getJavaMember(), name, enumType, column == null || column.insertable(), column == null || column.updatable());
+		}
+
+		private Object getValue(BaseEntity<?> entity) {
+			Object value = (member instanceof Field) ? accessField(entity, (Field) member) : invokeMethod(entity, (Method) member);
+
+			if (value instanceof Enum) {
+				return enumType == STRING ? ((Enum<?>) value).name() : ((Enum<?>) value).ordinal();
+			}
+			else if (value instanceof Instant) {
+				return Timestamp.from((Instant) value);
+			}
+			else if (value instanceof LocalDateTime) {
+				return Timestamp.valueOf((LocalDateTime) value);
+			}
+			else if (value instanceof LocalDate) {
+				return java.sql.Date.valueOf((LocalDate) value);
+			}
+			else if (value instanceof LocalTime) {
+				return Time.valueOf((LocalTime) value);
+			}
+
+			return value;
+		}
+	}
+
+}
@@ -15,19 +15,34 @@ package org.omnifaces.persistence.test;
 import static java.lang.System.getProperty;
 import static java.lang.System.getenv;
 import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
 import static org.jboss.shrinkwrap.api.ShrinkWrap.create;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.omnifaces.persistence.test.service.StartupService.TOTAL_RECORDS;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.ejb.EJB;
+import javax.ejb.EJBException;
 
 import org.jboss.arquillian.container.test.api.Deployment;
 import org.jboss.arquillian.junit5.ArquillianExtension;
@@ -42,13 +57,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.omnifaces.persistence.exception.IllegalEntityStateException;
 import org.omnifaces.persistence.exception.NonSoftDeletableEntityException;
 import org.omnifaces.persistence.model.dto.Page;
+import org.omnifaces.persistence.model.dto.PagedResultList;
 import org.omnifaces.persistence.test.model.Comment;
 import org.omnifaces.persistence.test.model.EnumEntity;
 import org.omnifaces.persistence.test.model.Gender;
 import org.omnifaces.persistence.test.model.Lookup;
+import org.omnifaces.persistence.test.model.Note;
 import org.omnifaces.persistence.test.model.Person;
 import org.omnifaces.persistence.test.model.Product;
 import org.omnifaces.persistence.test.model.ProductStatus;
+import org.omnifaces.persistence.test.model.Setting;
 import org.omnifaces.persistence.test.model.Text;
 import org.omnifaces.persistence.test.model.UserRole;
 import org.omnifaces.persistence.test.model.enums.HardDeleteCodeEnum;
@@ -69,17 +87,30 @@ import org.omnifaces.persistence.test.model.enums.SoftDeleteOnlyCodeEnum;
 import org.omnifaces.persistence.test.model.enums.SoftDeleteOnlyCodeTable;
 import org.omnifaces.persistence.test.model.enums.SoftDeleteOnlyIdEnum;
 import org.omnifaces.persistence.test.model.enums.SoftDeleteOnlyIdTable;
+import org.omnifaces.persistence.test.service.BatchLoadPersonService;
+import org.omnifaces.persistence.test.service.CachedCountPersonService;
+import org.omnifaces.persistence.test.service.CachedPagePersonService;
 import org.omnifaces.persistence.test.service.CommentService;
 import org.omnifaces.persistence.test.service.EnumEntityService;
+import org.omnifaces.persistence.test.service.EstimatedCountPersonService;
+import org.omnifaces.persistence.test.service.LazyCountPersonService;
 import org.omnifaces.persistence.test.service.LookupService;
+import org.omnifaces.persistence.test.service.NearCacheLookupService;
+import org.omnifaces.persistence.test.service.NoteService;
+import org.omnifaces.persistence.test.service.ParallelCountPersonService;
 import org.omnifaces.persistence.test.service.PersonService;
 import org.omnifaces.persistence.test.service.ProductService;
+import org.omnifaces.persistence.test.service.SettingService;
+import org.omnifaces.persistence.test.service.SingleFlightPersonService;
 import org.omnifaces.persistence.test.service.TextService;
+import org.omnifaces.persistence.test.service.WindowedCountPersonService;
 import org.omnifaces.utils.collection.PartialResultList;
 
 @ExtendWith(ArquillianExtension.class)
 public class OmniPersistenceTest {
 
+	private static final int CONCURRENT_INVOCATIONS = 5;
+
 	@Deployment
 	public static WebArchive createDeployment() {
 		MavenResolverSystem maven = Maven.resolver();
@@ -108,12 +139,45 @@ public class OmniPersistenceTest {
 	@EJB
 	private LookupService lookupService;
 
+	@EJB
+	private NoteService noteService;
+
+	@EJB
+	private SettingService settingService;
+
 	@EJB
 	private ProductService productService;
 
 	@EJB
 	private EnumEntityService enumEntityService;
 
+	@EJB
+	private WindowedCountPersonService windowedCountPersonService;
+
+	@EJB
+	private EstimatedCountPersonService estimatedCountPersonService;
+
+	@EJB
+	private LazyCountPersonService lazyCountPersonService;
+
+	@EJB
+	private ParallelCountPersonService parallelCountPersonService;
+
+	@EJB
+	private CachedCountPersonService cachedCountPersonService;
+
+	@EJB
+	private CachedPagePersonService cachedPagePersonService;
+
+	@EJB
+	private SingleFlightPersonService singleFlightPersonService;
+
+	@EJB
+	private BatchLoadPersonService batchLoadPersonService;
+
+	@EJB
+	private NearCacheLookupService nearCacheLookupService;
+
 	protected static boolean isEclipseLink() {
 		return getenv("MAVEN_CMD_LINE_ARGS").endsWith("-eclipselink");
 	}
@@ -214,6 +278,356 @@ public class OmniPersistenceTest {
 		assertTrue(males.size() < TOTAL_RECORDS, "There are less than 200 records");
 	}
 
+	@Test
+	public void testPageOfSameShape() {
+		PartialResultList<Person> males = personService.getPage(Page.with().allMatch(Collections.singletonMap("gender", Gender.MALE)).build(), true);
+		int pageStatementCount = personService.getPageStatementCount();
+		assertTrue(pageStatementCount > 0, "Page statements are recorded");
+		PartialResultList<Person> females = personService.getPage(Page.with().allMatch(Collections.singletonMap("gender", Gender.FEMALE)).build(), true);
+		assertEquals(pageStatementCount, personService.getPageStatementCount(), "Same page shape produces same statements");
+		assertTrue(males.stream().allMatch(person -> person.getGender() == Gender.MALE), "All records are male");
+		assertTrue(females.stream().allMatch(person -> person.getGender() == Gender.FEMALE), "All records are female");
+		assertEquals(males.getEstimatedTotalNumberOfResults(), males.size(), "Count query matches as well");
+		assertEquals(females.getEstimatedTotalNumberOfResults(), females.size(), "Count query matches as well");
+	}
+
+	@Test
+	public void testPageOfPaddedInClause() {
+		PartialResultList<Person> threePersons = personService.getPage(Page.with().allMatch(Collections.singletonMap("id", asList(1L, 2L, 3L))).build(), false);
+		int pageStatementCount = personService.getPageStatementCount();
+		PartialResultList<Person> fourPersons = personService.getPage(Page.with().allMatch(Collections.singletonMap("id", asList(1L, 2L, 3L, 4L))).build(), false);
+		assertEquals(pageStatementCount, personService.getPageStatementCount(), "IN clause of 3 values is padded to 4 values");
+		assertEquals(3, threePersons.size(), "Padding doesn't produce duplicates");
+		assertEquals(4, fourPersons.size(), "There are 4 records");
+
+		PartialResultList<Person> fivePersons = personService.getPage(Page.with().allMatch(Collections.singletonMap("id", asList(1L, 2L, 3L, 4L, 5L))).build(), false);
+		assertEquals(5, fivePersons.size(), "IN clause of 5 values is padded to 8 values");
+
+		if (isEclipseLink()) {
+			assertEquals(pageStatementCount, personService.getPageStatementCount(), "EclipseLink on H2 binds the values as one array parameter with FUNCTION('ANY')");
+		}
+
+		assertEquals(asList(5L, 4L, 3L, 2L, 1L), fivePersons.stream().map(Person::getId).collect(toList()), "Array parameter or padded IN clause matches all IDs");
+	}
+
+	@Test
+	public void testPageWithWindowedCount() {
+		Page males = Page.with().range(10, 10).allMatch(Collections.singletonMap("gender", Gender.MALE)).build();
+		PartialResultList<Person> expected = personService.getPage(males, true);
+		int pageStatementCount = personService.getPageStatementCount();
+		PartialResultList<Person> windowed = windowedCountPersonService.getPage(males, true);
+
+		if (isEclipseLink()) {
+			assertEquals(pageStatementCount + 1, personService.getPageStatementCount(), "EclipseLink embeds COUNT(*) OVER() as native SQL in a new statement");
+		}
+		else {
+			assertEquals(pageStatementCount, personService.getPageStatementCount(), "Hibernate falls back to the same entity and count statements when no windowed count function is registered");
+		}
+
+		assertEquals(expected.stream().map(Person::getId).collect(toList()), windowed.stream().map(Person::getId).collect(toList()), "Windowed page has same records");
+		assertEquals(expected.getEstimatedTotalNumberOfResults(), windowed.getEstimatedTotalNumberOfResults(), "Windowed count counts all records instead of the page");
+
+		PartialResultList<Person> beyondEnd = windowedCountPersonService.getPage(Page.of(TOTAL_RECORDS, 10), true);
+		assertTrue(beyondEnd.isEmpty(), "There are no records beyond the end");
+		assertEquals(TOTAL_RECORDS, beyondEnd.getEstimatedTotalNumberOfResults(), "Empty windowed page falls back to count query");
+	}
+
+	@Test
+	public void testPageWithEstimatedRowCount() {
+		PartialResultList<Person> persons = estimatedCountPersonService.getPage(Page.of(0, 10), true);
+		assertEquals(10, persons.size(), "There are 10 records");
+		assertEquals(TOTAL_RECORDS, persons.getEstimatedTotalNumberOfResults(), "Row count is estimated from H2 table statistics");
+
+		PartialResultList<Person> males = estimatedCountPersonService.getPage(Page.with().range(0, 10).allMatch(Collections.singletonMap("gender", Gender.MALE)).build(), true);
+		assertTrue(males.getEstimatedTotalNumberOfResults() < TOTAL_RECORDS, "Page with criteria is counted exactly");
+	}
+
+	@Test
+	public void testPageWithLazyCount() {
+		int beforePageInvocations = LazyCountPersonService.getBeforePageInvocations();
+		PartialResultList<Person> persons = lazyCountPersonService.getPage(Page.of(0, 10), true);
+		assertEquals(10, persons.size(), "There are 10 records");
+		assertEquals(beforePageInvocations + 1, LazyCountPersonService.getBeforePageInvocations(), "Count is not performed with page");
+
+		assertEquals(TOTAL_RECORDS, persons.getEstimatedTotalNumberOfResults(), "Count is performed on first access");
+		assertEquals(beforePageInvocations + 2, LazyCountPersonService.getBeforePageInvocations(), "Count is performed after service invocation");
+
+		assertEquals(TOTAL_RECORDS, persons.getEstimatedTotalNumberOfResults(), "Count is remembered");
+		assertEquals(beforePageInvocations + 2, LazyCountPersonService.getBeforePageInvocations(), "Count is performed at most once");
+	}
+
+	@Test
+	public void testPageWithUnavailableLazyCount() {
+		PartialResultList<Person> persons = lazyCountPersonService.getPage(Page.of(0, 10), true);
+		LazyCountPersonService.setUnavailable(true);
+
+		try {
+			IllegalStateException exception = assertThrows(IllegalStateException.class, persons::getEstimatedTotalNumberOfResults);
+			assertTrue(exception.getMessage().startsWith("Lazy count of page " + Page.of(0, 10) + " failed"), "Failure message mentions page");
+		}
+		finally {
+			LazyCountPersonService.setUnavailable(false);
+		}
+
+		assertEquals(TOTAL_RECORDS, persons.getEstimatedTotalNumberOfResults(), "Failed count is retried on next access");
+	}
+
+	@Test
+	public void testPageWithParallelCount() {
+		int forkedQueries = ParallelCountPersonService.getForkedQueries();
+		PartialResultList<Person> persons = parallelCountPersonService.getPageWithoutTransaction(Page.of(0, 10));
+		assertEquals(10, persons.size(), "There are 10 records");
+		assertEquals(TOTAL_RECORDS, persons.getEstimatedTotalNumberOfResults(), "There are 200 records");
+
+		Page malesPage = Page.with().range(0, 10).allMatch(Collections.singletonMap("gender", Gender.MALE)).build();
+		PartialResultList<Person> males = parallelCountPersonService.getPageWithoutTransaction(malesPage);
+		assertEquals(personService.getPage(malesPage, true).getEstimatedTotalNumberOfResults(), males.getEstimatedTotalNumberOfResults(), "Parallel count equals sequential count");
+		assertEquals(forkedQueries + 2, ParallelCountPersonService.getForkedQueries(), "Count queries are forked outside transaction");
+
+		parallelCountPersonService.getPage(malesPage, true);
+		assertEquals(forkedQueries + 2, ParallelCountPersonService.getForkedQueries(), "Count queries are not forked in transaction");
+	}
+
+	@Test
+	public void testPageWithCachedCount() throws InterruptedException {
+		Page malesPage = Page.with().range(0, 10).allMatch(Collections.singletonMap("gender", Gender.MALE)).build();
+		int males = cachedCountPersonService.getPageWithoutTransaction(malesPage).getEstimatedTotalNumberOfResults();
+		Person male = personService.getPage(malesPage, false).get(0);
+		male.setGender(Gender.FEMALE);
+		personService.update(male);
+
+		try {
+			assertEquals(males, cachedCountPersonService.getPageWithoutTransaction(malesPage).getEstimatedTotalNumberOfResults(), "Count is cached during time to live");
+			assertEquals(males - 1, cachedCountPersonService.getPage(malesPage, true).getEstimatedTotalNumberOfResults(), "Count is not cached in transaction");
+
+			Thread.sleep(CachedCountPersonService.TIME_TO_LIVE);
+			assertEquals(males, cachedCountPersonService.getPageWithoutTransaction(malesPage).getEstimatedTotalNumberOfResults(), "Expired count is reused while being revalidated");
+			assertEquals(males - 1, cachedCountPersonService.getPageWithoutTransaction(malesPage).getEstimatedTotalNumberOfResults(), "Expired count is revalidated");
+		}
+		finally {
+			cachedCountPersonService.updateGender(male.getId(), Gender.MALE);
+		}
+
+		assertEquals(males, cachedCountPersonService.getPageWithoutTransaction(malesPage).getEstimatedTotalNumberOfResults(), "Count is invalidated by bulk update");
+	}
+
+	@Test
+	public void testPageWithPageCache() {
+		Page page = Page.of(0, 10);
+		List<Long> ids = cachedPagePersonService.getPageWithoutTransaction(page).stream().map(Person::getId).collect(toList());
+		PartialResultList<Person> cachedPersons = cachedPagePersonService.getPageWithoutTransaction(page);
+		assertEquals(ids, cachedPersons.stream().map(Person::getId).collect(toList()), "Cached page has same records");
+		assertEquals(TOTAL_RECORDS, cachedPersons.getEstimatedTotalNumberOfResults(), "Cached page has same count");
+
+		String email = cachedPersons.get(0).getEmail();
+		cachedPersons.get(0).setEmail("testPageWithPageCache@example.com");
+		assertEquals(email, cachedPagePersonService.getPageWithoutTransaction(page).get(0).getEmail(), "Cached page is not shared");
+
+		Long id = cachedPersons.get(0).getId();
+		cachedPagePersonService.updateEmail(id, "testPageWithPageCache@example.com");
+
+		try {
+			assertEquals("testPageWithPageCache@example.com", cachedPagePersonService.getPageWithoutTransaction(page).get(0).getEmail(), "Page is invalidated after bulk update is committed");
+		}
+		finally {
+			cachedPagePersonService.updateEmail(id, email);
+		}
+	}
+
+	@Test
+	public void testPageWithSingleFlight() throws InterruptedException, ExecutionException {
+		Page page = Page.of(0, 10);
+		int queries = SingleFlightPersonService.getQueries();
+		List<List<Long>> pages = getPagesConcurrently(() -> singleFlightPersonService.getPageWithoutTransaction(page));
+		assertEquals(queries + 1, SingleFlightPersonService.getQueries(), "Concurrent invocations without transaction are coalesced");
+		assertEquals(1, new HashSet<>(pages).size(), "Coalesced invocations have same records");
+
+		queries = SingleFlightPersonService.getQueries();
+		getPagesConcurrently(() -> singleFlightPersonService.getPageInTransaction(page));
+		assertEquals(queries + CONCURRENT_INVOCATIONS, SingleFlightPersonService.getQueries(), "Concurrent invocations in transaction are not coalesced");
+	}
+
+	private static List<List<Long>> getPagesConcurrently(Supplier<PartialResultList<Person>> getPage) throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_INVOCATIONS);
+
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<List<Long>>> futures = new ArrayList<>();
+
+			for (int i = 0; i < CONCURRENT_INVOCATIONS; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return getPage.get().stream().map(Person::getId).collect(toList());
+				}));
+			}
+
+			start.countDown();
+			List<List<Long>> pages = new ArrayList<>();
+
+			for (Future<List<Long>> future : futures) {
+				pages.add(future.get());
+			}
+
+			return pages;
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testStream() {
+		assertEquals(TOTAL_RECORDS, personService.getStream().count(), "There are 200 records");
+
+		Page page = Page.of(10, 20);
+		List<Long> ids = personService.getPage(page, false).stream().map(Person::getId).collect(toList());
+		assertEquals(ids, personService.getStream(page).map(Person::getId).collect(toList()), "Stream has same records as page");
+	}
+
+	@Test
+	public void testPageWithCursor() {
+		PagedResultList<Person> first = PagedResultList.of(personService.getPage(Page.with().range(0, 10).orderBy("email", true).build(), false));
+		assertNull(first.getPreviousCursor(), "First page has no previous cursor");
+
+		PagedResultList<Person> second = PagedResultList.of(personService.getPage(Page.with().cursor(first.getNextCursor()).range(0, 10).orderBy("email", true).build(), false));
+		List<Long> secondIds = personService.getPage(Page.with().range(10, 10).orderBy("email", true).build(), false).stream().map(Person::getId).collect(toList());
+		assertEquals(10, second.getOffset(), "Next cursor holds offset");
+		assertEquals(secondIds, second.stream().map(Person::getId).collect(toList()), "Next cursor has same records as offset based page");
+
+		PagedResultList<Person> third = PagedResultList.of(personService.getPage(Page.with().cursor(second.getNextCursor()).range(0, 10).orderBy("email", true).build(), false));
+		PagedResultList<Person> previous = PagedResultList.of(personService.getPage(Page.with().cursor(third.getPreviousCursor()).range(0, 10).orderBy("email", true).build(), false));
+		assertEquals(10, previous.getOffset(), "Previous cursor holds offset");
+		assertEquals(secondIds, previous.stream().map(Person::getId).collect(toList()), "Previous cursor has same records as offset based page");
+		assertThrows(IllegalArgumentException.class, () -> PagedResultList.of(new PartialResultList<>(secondIds, 0, -1)), "Only results of getPage() have cursors");
+	}
+
+	@Test
+	public void testPageWithDeferredJoin() {
+		Map<String, Object> criteria = Collections.singletonMap("gender", Gender.MALE);
+		int males = personService.getPage(Page.with().allMatch(criteria).build(), false).size();
+		PartialResultList<Person> offsetBased = personService.getPage(Page.with().range(10, 10).orderBy("email", true).allMatch(criteria).deferredJoin(false).build(), true);
+		PartialResultList<Person> deferred = personService.getPage(Page.with().range(10, 10).orderBy("email", true).allMatch(criteria).deferredJoin(true).build(), true);
+		assertEquals(offsetBased.stream().map(Person::getId).collect(toList()), deferred.stream().map(Person::getId).collect(toList()), "Deferred join has same records in same order");
+		assertEquals(males, offsetBased.getEstimatedTotalNumberOfResults(), "Offset based paging counts criteria");
+		assertEquals(males, deferred.getEstimatedTotalNumberOfResults(), "Deferred join counts criteria");
+
+		PartialResultList<Person> deferredWithAddress = personService.getPageWithAddress(Page.with().range(10, 10).orderBy("email", true).allMatch(criteria).deferredJoin(true).build(), true);
+		assertEquals(offsetBased.stream().map(Person::getId).collect(toList()), deferredWithAddress.stream().map(Person::getId).collect(toList()), "Deferred join with fetch has same records in same order");
+		assertEquals(males, deferredWithAddress.getEstimatedTotalNumberOfResults(), "Deferred join with fetch counts criteria");
+	}
+
+	@Test
+	public void testPageWithPhones() {
+		Page page = Page.with().range(10, 25).orderBy("email", true).build();
+		PartialResultList<Person> persons = personService.getPage(page, true);
+		PartialResultList<Person> personsWithPhones = personService.getPageWithPhones(page, true);
+		assertEquals(persons.stream().map(Person::getId).collect(toList()), personsWithPhones.stream().map(Person::getId).collect(toList()), "Page with phones has same persons in same order");
+		assertEquals(persons.getEstimatedTotalNumberOfResults(), personsWithPhones.getEstimatedTotalNumberOfResults(), "Page with phones has same count");
+		assertTrue(personsWithPhones.stream().noneMatch(person -> person.getPhones().isEmpty()), "Phones are fetched");
+	}
+
+	@Test
+	public void testCountOfPageWithFetchesAndCriteria() {
+		Map<String, Object> criteria = Collections.singletonMap("gender", Gender.MALE);
+		int males = personService.getPage(Page.with().allMatch(criteria).build(), false).size();
+		assertEquals(males, personService.getPageWithAddress(Page.with().range(0, 10).allMatch(criteria).build(), true).getEstimatedTotalNumberOfResults(), "Count with to-one fetch");
+		assertEquals(males, personService.getPageWithPhones(Page.with().range(0, 10).allMatch(criteria).build(), true).getEstimatedTotalNumberOfResults(), "Count with to-many fetch");
+	}
+
+	@Test
+	public void testPageWithProbeNext() {
+		PagedResultList<Person> page = PagedResultList.of(personService.getPage(Page.with().range(0, 10).probeNext(true).build(), false));
+		assertEquals(10, page.size(), "Probed entity is not returned");
+		assertTrue(page.hasNext(), "There is a next page");
+
+		PagedResultList<Person> lastPage = PagedResultList.of(personService.getPage(Page.with().range(TOTAL_RECORDS - 10, 10).probeNext(true).build(), false));
+		assertEquals(10, lastPage.size(), "Last page is full");
+		assertFalse(lastPage.hasNext(), "There is no next page");
+		assertNull(lastPage.getNextCursor(), "Last page has no next cursor");
+	}
+
+	@Test
+	public void testExists() {
+		assertTrue(personService.exists(Page.with().allMatch(Collections.singletonMap("gender", Gender.MALE)).build()), "Males exist");
+		assertFalse(personService.exists(Page.with().allMatch(Collections.singletonMap("email", "nonexistent@example.com")).build()), "Nonexistent email does not exist");
+	}
+
+	@Test
+	public void testGetByIds() {
+		List<Person> persons = personService.getByIds(asList(3L, 1L, 0L, 3L, 2L));
+		assertEquals(asList(3L, 2L, 1L), persons.stream().map(Person::getId).collect(toList()), "Existing distinct entities are returned by ID, descending");
+		assertTrue(personService.getByIds(Collections.emptyList()).isEmpty(), "No entities are returned for no IDs");
+		List<Long> allIds = personService.list().stream().map(Person::getId).collect(toList());
+		assertEquals(allIds, personService.getByIds(allIds).stream().map(Person::getId).collect(toList()), "All IDs are queried in chunks or as array");
+
+		lookupService.persist(asList(new Lookup("la"), new Lookup("lb")));
+		lookupService.softDelete(lookupService.getById("lb"));
+		assertEquals(asList("la"), lookupService.getByIds(asList("la", "lb")).stream().map(Lookup::getId).collect(toList()), "Soft deleted entities are not returned");
+	}
+
+	@Test
+	public void testLoad() {
+		Supplier<Person> person1 = personService.load(1L);
+		Supplier<Person> person2 = personService.load(2L);
+		Supplier<Person> nonexistentPerson = personService.load(0L);
+		assertEquals(Long.valueOf(2L), person2.get().getId(), "Second person");
+		assertEquals(Long.valueOf(1L), person1.get().getId(), "First person");
+		assertNull(nonexistentPerson.get(), "Nonexistent person");
+	}
+
+	@Test
+	public void testLoadInBatches() {
+		int loads = BatchLoadPersonService.getLoads();
+		Supplier<Person> person1 = batchLoadPersonService.load(1L);
+		Supplier<Person> person2 = batchLoadPersonService.load(2L);
+		Supplier<Person> person3 = personService.load(3L);
+		assertEquals(Long.valueOf(1L), person1.get().getId(), "First person");
+		assertEquals(Long.valueOf(2L), person2.get().getId(), "Second person");
+		assertEquals(loads + 1, BatchLoadPersonService.getLoads(), "IDs of same service are loaded at once");
+		assertEquals(Long.valueOf(3L), person3.get().getId(), "Third person is loaded by other service");
+		assertEquals(loads + 1, BatchLoadPersonService.getLoads(), "IDs of other service are not in same batch");
+
+		Supplier<Person> person4 = batchLoadPersonService.load(4L);
+		assertEquals(Long.valueOf(4L), person4.get().getId(), "Fourth person");
+		assertEquals(loads + 2, BatchLoadPersonService.getLoads(), "IDs after resolved batch are loaded in new batch");
+		assertEquals(Long.valueOf(1L), person1.get().getId(), "Resolved batch is not loaded again");
+		assertEquals(loads + 2, BatchLoadPersonService.getLoads(), "Resolved batch is not loaded again");
+	}
+
+	@Test
+	public void testGetByIdWithNearCache() {
+		int loads = NearCacheLookupService.getLoads();
+		assertNull(nearCacheLookupService.getByIdWithoutTransaction("na"), "Nonexistent entity");
+		assertNull(nearCacheLookupService.getByIdWithoutTransaction("na"), "Nonexistent entity");
+		assertEquals(loads + 1, NearCacheLookupService.getLoads(), "Nonexistent entity is cached");
+
+		nearCacheLookupService.persist(new Lookup("na"));
+		Lookup lookup = nearCacheLookupService.getByIdWithoutTransaction("na");
+		Lookup cachedLookup = nearCacheLookupService.getByIdWithoutTransaction("na");
+		assertEquals("na", cachedLookup.getId(), "Created entity");
+		assertNotSame(lookup, cachedLookup, "Cached entity is a copy");
+		assertEquals(loads + 2, NearCacheLookupService.getLoads(), "Created entity invalidates cache and is cached");
+
+		nearCacheLookupService.getByIdInTransaction("na");
+		nearCacheLookupService.getByIdInTransaction("na");
+		assertEquals(loads + 4, NearCacheLookupService.getLoads(), "Entity in transaction is not cached");
+
+		cachedLookup.setActive(false);
+		nearCacheLookupService.update(cachedLookup);
+		assertNull(nearCacheLookupService.getByIdWithoutTransaction("na"), "Updated entity is soft deleted");
+		assertNull(nearCacheLookupService.getByIdWithoutTransaction("na"), "Updated entity is soft deleted");
+		assertEquals(loads + 5, NearCacheLookupService.getLoads(), "Updated entity invalidates cache and soft deleted entity is cached");
+
+		nearCacheLookupService.softUndelete(nearCacheLookupService.getSoftDeletedById("na"));
+		assertEquals("na", nearCacheLookupService.getByIdWithoutTransaction("na").getId(), "Soft undeleted entity");
+		assertEquals(loads + 6, NearCacheLookupService.getLoads(), "Soft undelete invalidates cache");
+
+		nearCacheLookupService.delete(nearCacheLookupService.getById("na"));
+		assertNull(nearCacheLookupService.getByIdWithoutTransaction("na"), "Deleted entity");
+		assertNull(nearCacheLookupService.getByIdWithoutTransaction("na"), "Deleted entity");
+		assertEquals(loads + 8, NearCacheLookupService.getLoads(), "Deleted entity invalidates cache and is cached as nonexistent");
+	}
+
 	// @SoftDeletable -------------------------------------------------------------------------------------------------
 
 	@Test
@@ -258,6 +672,36 @@ public class OmniPersistenceTest {
 		assertEquals(commentService.listSoftDeleted().size(), allComments.size(), "Total deleted records for comments");
 	}
 
+	@Test
+	public void testSoftDeleteDetachesById() {
+		Note note = new Note();
+		note.setContent("testSoftDeleteDetachesById");
+		noteService.persist(note);
+		assertTrue(noteService.isDetachedAfterSoftDeleteById(note.getId()), "Managed entity with same ID was detached after soft delete");
+		assertTrue(noteService.getSoftDeletedById(note.getId()) != null, "Entity was soft deleted");
+	}
+
+	@Test
+	public void testUpdateAfterSoftDelete() {
+		Note note = new Note();
+		note.setContent("testUpdateAfterSoftDelete");
+		noteService.persist(note);
+		List<Note> notes = Collections.singletonList(noteService.getById(note.getId()));
+		Long version = notes.get(0).getVersion();
+
+		noteService.softDelete(notes);
+		assertEquals(Long.valueOf(version + 1), notes.get(0).getVersion(), "Version was incremented on soft delete");
+		notes.get(0).setContent("testUpdateAfterSoftDelete (soft deleted)");
+		noteService.update(notes.get(0));
+		assertEquals("testUpdateAfterSoftDelete (soft deleted)", noteService.getSoftDeletedById(note.getId()).getContent(), "Soft deleted entity was updated");
+
+		notes = Collections.singletonList(noteService.getSoftDeletedById(note.getId()));
+		noteService.softUndelete(notes);
+		notes.get(0).setContent("testUpdateAfterSoftDelete (soft undeleted)");
+		noteService.update(notes.get(0));
+		assertEquals("testUpdateAfterSoftDelete (soft undeleted)", noteService.getById(note.getId()).getContent(), "Soft undeleted entity was updated");
+	}
+
 	@Test
 	public void testGetAllSoftDeletedForNonSoftDeletable() {
 		assertThrows(NonSoftDeletableEntityException.class, () -> personService.listSoftDeleted());
@@ -336,6 +780,96 @@ public class OmniPersistenceTest {
 		assertThrows(IllegalEntityStateException.class, () -> lookupService.update(lookup));
 	}
 
+	@Test
+	public void testPersistLookups() {
+		List<Lookup> lookups = asList(new Lookup("fa"), new Lookup("fb"), new Lookup("fc"));
+		List<String> ids = lookupService.persist(lookups);
+		assertEquals(asList("fa", "fb", "fc"), ids, "IDs are returned in same order as given entities");
+		assertEquals(3, lookupService.getByIds(ids).size(), "All entities were persisted");
+		assertThrows(IllegalEntityStateException.class, () -> lookupService.persist(asList(new Lookup("fd"), new Lookup("fa"))));
+	}
+
+	@Test
+	public void testPersistLookupsWithDuplicateIds() {
+		assertThrows(IllegalEntityStateException.class, () -> lookupService.persist(asList(new Lookup("ja"), new Lookup("jb"), new Lookup("ja"))));
+		assertFalse(lookupService.findById("ja").isPresent(), "No entity was persisted");
+	}
+
+	@Test
+	public void testExistingLookups() {
+		lookupService.persist(asList(new Lookup("ka"), new Lookup("kb")));
+		Lookup softDeletedLookup = lookupService.getById("kb");
+		lookupService.softDelete(softDeletedLookup);
+
+		assertTrue(lookupService.isExisting(lookupService.getById("ka")), "Persisted entity exists");
+		assertTrue(lookupService.isExisting(new Lookup("ka")), "Unmanaged entity with persisted ID exists");
+		assertFalse(lookupService.isExisting(new Lookup("kc")), "Unmanaged entity with nonexistent ID does not exist");
+		assertFalse(lookupService.isExisting(new Lookup()), "Entity without ID does not exist");
+
+		assertTrue(lookupService.isExistingId("ka"), "Persisted ID exists");
+		assertTrue(lookupService.isExistingId("kb"), "Soft deleted ID exists");
+		assertFalse(lookupService.isExistingId("kc"), "Nonexistent ID does not exist");
+		assertFalse(lookupService.isExistingId(null), "Null ID does not exist");
+
+		assertEquals(new HashSet<>(asList("ka", "kb")), lookupService.getExistingIdsOf(asList("ka", "kb", "kc", "ka", null)), "Only existing IDs are returned");
+		assertTrue(lookupService.getExistingIdsOf(Collections.emptyList()).isEmpty(), "No IDs exist of no IDs");
+	}
+
+	@Test
+	public void testUpdateLookups() {
+		List<Lookup> lookups = lookupService.getByIds(lookupService.persist(asList(new Lookup("ga"), new Lookup("gb"))));
+		lookups.forEach(lookup -> lookup.setActive(false));
+		List<Lookup> updatedLookups = lookupService.update(lookups);
+		assertEquals(2, updatedLookups.size(), "All entities were updated");
+		assertTrue(lookupService.getByIds(asList("ga", "gb")).isEmpty(), "All entities were merged with update method");
+		assertThrows(IllegalEntityStateException.class, () -> lookupService.update(asList(new Lookup("gc"))));
+	}
+
+	@Test
+	public void testDeleteLookups() {
+		lookupService.persist(asList(new Lookup("ha"), new Lookup("hb"), new Lookup("hc")));
+		lookupService.deleteByIds(asList("ha", "hb"));
+		assertTrue(lookupService.getByIds(asList("ha", "hb")).isEmpty(), "Entities were deleted with deleteByIds method");
+
+		List<Lookup> lookups = lookupService.getByIds(asList("hc"));
+		lookupService.delete(lookups);
+		assertTrue(lookups.get(0).getId() == null, "Entity ID was cleared after delete method");
+		assertTrue(!lookupService.findById("hc").isPresent(), "Entity was deleted with delete method");
+
+		lookupService.persist(new Lookup("hd"));
+		assertTrue(lookupService.isDetachedAfterDeleteByIds("hd"), "Managed entity was detached after deleteByIds method");
+	}
+
+	@Test
+	public void testUpsertLookups() {
+		lookupService.upsert(new Lookup("ia"));
+		assertTrue(lookupService.findById("ia").isPresent(), "New entity was inserted with upsert method");
+
+		Lookup inactiveLookup = new Lookup("ia");
+		inactiveLookup.setActive(false);
+		lookupService.upsert(asList(inactiveLookup, new Lookup("ib")));
+		assertTrue(lookupService.findSoftDeletedById("ia").isPresent(), "Existing entity was updated with upsert method");
+		assertTrue(lookupService.findById("ib").isPresent(), "New entity was inserted with upsert method");
+	}
+
+	@Test
+	public void testUpsertKeepsCreated() {
+		settingService.upsert(new Setting("testUpsertKeepsCreated", "inserted"));
+		Instant created = settingService.getById("testUpsertKeepsCreated").getCreated();
+
+		settingService.upsert(new Setting("testUpsertKeepsCreated", "updated"));
+		Setting setting = settingService.getById("testUpsertKeepsCreated");
+		assertEquals("updated", setting.getLabel(), "Existing entity was updated with upsert method");
+		assertEquals(created, setting.getCreated(), "Created timestamp was not updated with upsert method");
+	}
+
+	@Test
+	public void testUpsertInvalid() {
+		assertThrows(EJBException.class, () -> settingService.upsert(asList(new Setting("testUpsertValid", "valid"), new Setting("testUpsertInvalid", null))));
+		assertFalse(settingService.findById("testUpsertValid").isPresent(), "Nothing was written when an entity is invalid");
+		assertFalse(settingService.findById("testUpsertInvalid").isPresent(), "Invalid entity was not written");
+	}
+
 
 	// @EnumMapping ---------------------------------------------------------------------------------------------------
 
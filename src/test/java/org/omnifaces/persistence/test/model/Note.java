@@ -0,0 +1,48 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.test.model;
+
+import static org.omnifaces.persistence.model.SoftDeletable.Type.ACTIVE;
+
+import javax.persistence.Entity;
+
+import org.omnifaces.persistence.model.SoftDeletable;
+import org.omnifaces.persistence.model.VersionedEntity;
+
+@Entity
+public class Note extends VersionedEntity<Long> {
+
+	private static final long serialVersionUID = 1L;
+
+	private String content;
+
+	@SoftDeletable(type = ACTIVE)
+	private boolean active = true;
+
+	public String getContent() {
+		return content;
+	}
+
+	public void setContent(String content) {
+		this.content = content;
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	public void setActive(boolean active) {
+		this.active = active;
+	}
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.test.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.validation.constraints.NotNull;
+
+import org.omnifaces.persistence.model.TimestampedBaseEntity;
+
+@Entity
+public class Setting extends TimestampedBaseEntity<String> {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@Column(length = 32, nullable = false)
+	private String id;
+
+	@NotNull
+	private String label;
+
+	public Setting() {
+		//
+	}
+
+	public Setting(String id, String label) {
+		this.id = id;
+		this.label = label;
+	}
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	@Override
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	public void setLabel(String label) {
+		this.label = label;
+	}
+
+}
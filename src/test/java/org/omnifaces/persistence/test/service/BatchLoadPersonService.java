@@ -0,0 +1,38 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.test.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ejb.Stateless;
+
+import org.omnifaces.persistence.service.BaseEntityService;
+import org.omnifaces.persistence.test.model.Person;
+
+@Stateless
+public class BatchLoadPersonService extends BaseEntityService<Long, Person> {
+
+	private static final AtomicInteger LOADS = new AtomicInteger();
+
+	@Override
+	protected List<Person> getByIds(Iterable<Long> ids, boolean includeSoftDeleted) {
+		LOADS.incrementAndGet();
+		return super.getByIds(ids, includeSoftDeleted);
+	}
+
+	public static int getLoads() {
+		return LOADS.get();
+	}
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.test.service;
+
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+
+import java.util.concurrent.Executor;
+
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+
+import org.omnifaces.persistence.model.dto.Page;
+import org.omnifaces.persistence.service.BaseEntityService;
+import org.omnifaces.persistence.test.model.Gender;
+import org.omnifaces.persistence.test.model.Person;
+import org.omnifaces.utils.collection.PartialResultList;
+
+@Stateless
+public class CachedCountPersonService extends BaseEntityService<Long, Person> {
+
+	public static final long TIME_TO_LIVE = 1000;
+	public static final long STALE_WHILE_REVALIDATE = 60000;
+
+	@Override
+	protected long getCountCacheTimeToLive() {
+		return TIME_TO_LIVE;
+	}
+
+	@Override
+	protected long getCountCacheStaleWhileRevalidate() {
+		return STALE_WHILE_REVALIDATE;
+	}
+
+	@Override
+	protected Executor getParallelQueryExecutor() {
+		return Runnable::run; // Refreshes synchronously, so that the outcome is predictable.
+	}
+
+	@TransactionAttribute(NOT_SUPPORTED)
+	public PartialResultList<Person> getPageWithoutTransaction(Page page) {
+		return getPage(page, true);
+	}
+
+	public void updateGender(Long id, Gender gender) {
+		update("SET gender = :gender WHERE id = :id", parameters -> {
+			parameters.put("gender", gender);
+			parameters.put("id", id);
+		});
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.test.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.ejb.Stateless;
+import javax.persistence.EntityManager;
+
+import org.omnifaces.persistence.service.BaseEntityService;
+import org.omnifaces.persistence.test.model.Person;
+
+@Stateless
+public class LazyCountPersonService extends BaseEntityService<Long, Person> {
+
+	private static final AtomicInteger BEFORE_PAGE_INVOCATIONS = new AtomicInteger();
+	private static volatile boolean unavailable;
+
+	@Override
+	protected boolean isLazyCountEnabled() {
+		return true;
+	}
+
+	@Override
+	protected Consumer<EntityManager> beforePage() {
+		return entityManager -> {
+			if (unavailable) {
+				throw new IllegalStateException("Unavailable");
+			}
+
+			BEFORE_PAGE_INVOCATIONS.incrementAndGet();
+		};
+	}
+
+	public static int getBeforePageInvocations() {
+		return BEFORE_PAGE_INVOCATIONS.get();
+	}
+
+	public static void setUnavailable(boolean unavailable) {
+		LazyCountPersonService.unavailable = unavailable;
+	}
+
+}
@@ -12,6 +12,10 @@
  */
 package org.omnifaces.persistence.test.service;
 
+import static java.util.Arrays.asList;
+
+import java.util.Set;
+
 import javax.ejb.Stateless;
 
 import org.omnifaces.persistence.service.BaseEntityService;
@@ -20,4 +24,22 @@ import org.omnifaces.persistence.test.model.Lookup;
 @Stateless
 public class LookupService extends BaseEntityService<String, Lookup> {
 
+	public boolean isExisting(Lookup lookup) {
+		return exists(lookup);
+	}
+
+	public boolean isExistingId(String id) {
+		return existsById(id);
+	}
+
+	public Set<String> getExistingIdsOf(Iterable<String> ids) {
+		return getExistingIds(ids);
+	}
+
+	public boolean isDetachedAfterDeleteByIds(String id) {
+		Lookup lookup = getById(id);
+		deleteByIds(asList(id));
+		return !getEntityManager().contains(lookup);
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.test.service;
+
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+
+import org.omnifaces.persistence.service.BaseEntityService;
+import org.omnifaces.persistence.test.model.Lookup;
+
+@Stateless
+public class NearCacheLookupService extends BaseEntityService<String, Lookup> {
+
+	private static final AtomicInteger LOADS = new AtomicInteger();
+
+	@Override
+	protected int getNearCacheSize() {
+		return 10;
+	}
+
+	@Override
+	protected long getNearCacheNegativeTimeToLive() {
+		return 60000;
+	}
+
+	@Override
+	protected Lookup getById(String id, boolean includeSoftDeleted) {
+		LOADS.incrementAndGet();
+		return super.getById(id, includeSoftDeleted);
+	}
+
+	@TransactionAttribute(NOT_SUPPORTED)
+	public Lookup getByIdWithoutTransaction(String id) {
+		return getById(id);
+	}
+
+	public Lookup getByIdInTransaction(String id) {
+		return getById(id);
+	}
+
+	public static int getLoads() {
+		return LOADS.get();
+	}
+
+}
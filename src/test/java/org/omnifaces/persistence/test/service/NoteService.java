@@ -0,0 +1,33 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.test.service;
+
+import static java.util.Collections.singletonList;
+
+import javax.ejb.Stateless;
+
+import org.omnifaces.persistence.service.BaseEntityService;
+import org.omnifaces.persistence.test.model.Note;
+
+@Stateless
+public class NoteService extends BaseEntityService<Long, Note> {
+
+	public boolean isDetachedAfterSoftDeleteById(Long id) {
+		Note note = getById(id);
+		Note noteWithSameId = new Note();
+		noteWithSameId.setId(id);
+		softDelete(singletonList(noteWithSameId));
+		return !getEntityManager().contains(note);
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.test.service;
+
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+
+import org.omnifaces.persistence.model.dto.Page;
+import org.omnifaces.persistence.service.BaseEntityService;
+import org.omnifaces.persistence.test.model.Person;
+import org.omnifaces.utils.collection.PartialResultList;
+
+@Stateless
+public class ParallelCountPersonService extends BaseEntityService<Long, Person> {
+
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool();
+	private static final AtomicInteger FORKED_QUERIES = new AtomicInteger();
+
+	@Override
+	protected Executor getParallelQueryExecutor() {
+		return command -> {
+			FORKED_QUERIES.incrementAndGet();
+			EXECUTOR.execute(command);
+		};
+	}
+
+	@TransactionAttribute(NOT_SUPPORTED)
+	public PartialResultList<Person> getPageWithoutTransaction(Page page) {
+		return getPage(page, true);
+	}
+
+	public static int getForkedQueries() {
+		return FORKED_QUERIES.get();
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2021 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.persistence.test.service;
+
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.persistence.TypedQuery;
+
+import org.omnifaces.persistence.model.dto.Page;
+import org.omnifaces.persistence.service.BaseEntityService;
+import org.omnifaces.persistence.test.model.Person;
+import org.omnifaces.utils.collection.PartialResultList;
+
+@Stateless
+public class SingleFlightPersonService extends BaseEntityService<Long, Person> {
+
+	public static final long QUERY_DELAY = 1000;
+
+	private static final AtomicInteger QUERIES = new AtomicInteger();
+
+	@Override
+	protected long getSingleFlightTimeout() {
+		return QUERY_DELAY * 10;
+	}
+
+	@Override
+	protected <T extends Person> Consumer<TypedQuery<?>> onPage(Class<T> resultType, boolean cacheable) {
+		Consumer<TypedQuery<?>> onPage = super.onPage(resultType, cacheable);
+		return typedQuery -> {
+			QUERIES.incrementAndGet();
+
+			try {
+				Thread.sleep(QUERY_DELAY); // Gives concurrent invocations the time to arrive.
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			onPage.accept(typedQuery);
+		};
+	}
+
+	@TransactionAttribute(NOT_SUPPORTED)
+	public PartialResultList<Person> getPageWithoutTransaction(Page page) {
+		return getPage(page, false);
+	}
+
+	public PartialResultList<Person> getPageInTransaction(Page page) {
+		return getPage(page, false);
+	}
+
+	public static int getQueries() {
+		return QUERIES.get();
+	}
+
+}